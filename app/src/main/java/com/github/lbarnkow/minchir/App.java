@@ -1,23 +1,41 @@
 package com.github.lbarnkow.minchir;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
-import org.apache.velocity.app.VelocityEngine;
-
+import com.github.lbarnkow.minchir.assets.ResponsiveImage;
+import com.github.lbarnkow.minchir.assets.StaticAssets;
 import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.config.LiveSettings;
 import com.github.lbarnkow.minchir.config.Scopes;
 import com.github.lbarnkow.minchir.config.Settings;
+import com.github.lbarnkow.minchir.config.SettingsWatcher;
 import com.github.lbarnkow.minchir.config.Translations;
 import com.github.lbarnkow.minchir.handlers.before.csrf.CSRFHandler;
 import com.github.lbarnkow.minchir.handlers.request.ConsentHandler;
 import com.github.lbarnkow.minchir.handlers.request.LoginHandler;
 import com.github.lbarnkow.minchir.handlers.request.LogoutHandler;
+import com.github.lbarnkow.minchir.health.HealthMonitor;
 import com.github.lbarnkow.minchir.hydra.impl.OryHydraAdminApiImpl;
+import com.github.lbarnkow.minchir.logging.AccessLog;
+import com.github.lbarnkow.minchir.logging.RequestContext;
+import com.github.lbarnkow.minchir.metrics.Metrics;
+import com.github.lbarnkow.minchir.metrics.MetricsRegistry;
+import com.github.lbarnkow.minchir.profiling.FlightRecordings;
+import com.github.lbarnkow.minchir.server.AdminServer;
+import com.github.lbarnkow.minchir.server.Compression;
+import com.github.lbarnkow.minchir.server.ConcurrencyLimiter;
+import com.github.lbarnkow.minchir.server.LoadShedder;
+import com.github.lbarnkow.minchir.server.ServerFactory;
+import com.github.lbarnkow.minchir.server.VirtualThreads;
+import com.github.lbarnkow.minchir.templates.ErrorPages;
+import com.github.lbarnkow.minchir.templates.PageRenderer;
+import com.github.lbarnkow.minchir.templates.TemplateRenderer;
+import com.github.lbarnkow.minchir.tracing.Tracer;
 import com.github.lbarnkow.minchir.util.SystemExitException;
 
 import io.javalin.Javalin;
-import io.javalin.http.staticfiles.Location;
-import io.javalin.plugin.rendering.template.JavalinVelocity;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -98,43 +116,117 @@ public class App {
   }
 
   public Javalin javalinApp() throws Exception {
-    var settings = new Settings( //
+    var settings = new LiveSettings(loadSettings());
+    var app = javalinApp(settings);
+
+    var reload = settings.get().getConfig().getReload();
+    if (reload != null && Boolean.TRUE.equals(reload.getEnabled())) {
+      var files = new ArrayList<String>();
+      files.addAll(configFiles);
+      files.addAll(translationFiles);
+      files.addAll(scopesFiles);
+
+      var watcher = new SettingsWatcher(settings, this::loadSettings, files, reload.getDebounceMilliseconds());
+      app.events(event -> {
+        event.serverStarted(watcher::start);
+        event.serverStopping(watcher::close);
+      });
+    }
+
+    return app;
+  }
+
+  private Settings loadSettings() {
+    return new Settings( //
         Config.load(configFiles.toArray(new String[0])), //
         Translations.load(translationFiles.toArray(new String[0])), //
         Scopes.load(scopesFiles.toArray(new String[0])) //
     );
-
-    return javalinApp(settings);
   }
 
   public Javalin javalinApp(Settings settings) throws Exception {
+    return javalinApp(new LiveSettings(settings));
+  }
+
+  public Javalin javalinApp(LiveSettings liveSettings) throws Exception {
+    var virtualThreads = Boolean.TRUE.equals(liveSettings.get().getConfig().getServer().getVirtualThreads());
+    return javalinApp(liveSettings, virtualThreads ? VirtualThreads.executor() : null);
+  }
+
+  /**
+   * @param handlerExecutor runs the login, consent and logout handlers; {@code null} to run them on the jetty threads
+   */
+  public Javalin javalinApp(LiveSettings liveSettings, Executor handlerExecutor) throws Exception {
+    var settings = liveSettings.get();
     var config = settings.getConfig();
-    var translations = settings.getTranslations();
 
-    var velocityEngine = new VelocityEngine();
-    velocityEngine.init();
+    var assets = StaticAssets.load(config.getServer().getAssetsPath("static"), config.getImages());
+    var pages = new PageRenderer(TemplateRenderer.create(config), assets.getTemplateVariables());
 
-    JavalinVelocity.configure(velocityEngine);
+    Tracer.configure(config.getTracing());
 
     var app = Javalin.create(c -> {
-      c.addStaticFiles(config.getServer().getAssetsPath("static"), Location.EXTERNAL);
+      c.server(() -> ServerFactory.create(config.getServer()));
+      if (Boolean.TRUE.equals(config.getAccessLog().getEnabled())) {
+        c.requestLogger(new AccessLog(config.getAccessLog()));
+      }
+      Compression.configure(c, config.getCompression());
     });
     app.jettyServer().setServerPort(config.getServer().getPort());
+    ServerFactory.addConnectors(app, config.getServer());
+    app.before(RequestContext::begin);
+    app.after(RequestContext::end);
+    LoadShedder.configure(app, config.getServer().getThreadPool());
 
-    for (var code : new int[] {400, 404, 500}) {
-      final var template = String.format("%s/%s.vtl", config.getServer().getAssetsPath("templates"), code);
-      app.error(code, ctx -> {
-        var lang = ctx.req.getLocale().getLanguage();
-        ctx.render(template, translations.get(lang));
-      });
+    if (assets.hasResponsiveImages()) {
+      app.after(ResponsiveImage::requestClientHints);
+    }
+
+    var errorPages = new ErrorPages(pages, settings.getTranslations());
+    liveSettings.addListener(reloaded -> errorPages.update(reloaded.getTranslations()));
+    for (var code : ErrorPages.STATUS_CODES) {
+      app.error(code, ctx -> errorPages.handle(code, ctx));
     }
 
     var hydraAdmin = new OryHydraAdminApiImpl(settings);
     var csrfHandler = new CSRFHandler(settings);
 
-    app.routes(new LoginHandler(settings, hydraAdmin, csrfHandler));
-    app.routes(new ConsentHandler(settings, hydraAdmin, csrfHandler));
-    app.routes(new LogoutHandler(settings, hydraAdmin, csrfHandler));
+    var limitConfig = config.getServer().getConcurrencyLimit();
+    var limiter = Boolean.TRUE.equals(limitConfig.getEnabled()) ? new ConcurrencyLimiter(limitConfig) : null;
+
+    var loginHandler = new LoginHandler(liveSettings, pages, hydraAdmin, csrfHandler, limiter, handlerExecutor);
+    app.routes(loginHandler);
+    app.routes(new ConsentHandler(liveSettings, pages, hydraAdmin, csrfHandler, limiter, handlerExecutor));
+    app.routes(new LogoutHandler(liveSettings, pages, hydraAdmin, csrfHandler, limiter, handlerExecutor));
+    app.get("/*", assets);
+
+    // operational endpoints are only served on the admin port, never next to the login pages
+    if (Boolean.TRUE.equals(config.getAdmin().getEnabled())) {
+      var admin = new AdminServer(config.getAdmin());
+      if (Boolean.TRUE.equals(config.getMetrics().getEnabled())) {
+        admin.get(config.getMetrics().getPath(),
+            ctx -> ctx.contentType(MetricsRegistry.CONTENT_TYPE).result(Metrics.REGISTRY.scrape()));
+      }
+
+      var health = new HealthMonitor(config.getHealth()) //
+          .register("ldap", loginHandler::checkLdap) //
+          .register("hydra", hydraAdmin::checkHealth);
+      admin.get(config.getHealth().getLivePath(), health::handleLiveness);
+      admin.get(config.getHealth().getReadyPath(), health::handleReadiness);
+      health.attachTo(app);
+
+      if (Boolean.TRUE.equals(config.getProfiling().getEnabled())) {
+        var path = config.getProfiling().getPath();
+        var recordings = new FlightRecordings(config.getProfiling());
+        admin.get(path, recordings::handleStatus);
+        admin.post(path + "/start", recordings::handleStart);
+        admin.post(path + "/stop", recordings::handleStop);
+        admin.get(path + "/download", recordings::handleDownload);
+        recordings.attachTo(app);
+      }
+
+      admin.attachTo(app);
+    }
 
     return app;
   }
@@ -0,0 +1,206 @@
+package com.github.lbarnkow.minchir.assets;
+
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.assets.StaticAsset.Variant;
+
+import io.javalin.http.Context;
+import lombok.Value;
+
+/**
+ * Smaller (and, if an ImageIO WebP writer is on the classpath, WebP) renditions of an image asset, generated at
+ * startup. The rendition is picked per request from the {@code Accept} header and the viewport width and pixel ratio
+ * client hints; clients sending no hints get the original.
+ */
+public class ResponsiveImage {
+
+  public static final String WEBP = "image/webp";
+  public static final String JPEG = "image/jpeg";
+
+  public static final String ACCEPT_CH = "Accept-CH";
+
+  /**
+   * Client hints to request via {@code Accept-CH} on pages referencing responsive images.
+   */
+  public static final String CLIENT_HINTS = "Sec-CH-Viewport-Width, Sec-CH-DPR, Viewport-Width, DPR";
+  public static final String VARY = "Accept, " + CLIENT_HINTS;
+
+  private static final Logger LOG = LoggerFactory.getLogger(ResponsiveImage.class);
+
+  private static final String HTML = "text/html";
+
+  private final Rendition original;
+  private final List<Rendition> renditions;
+
+  private ResponsiveImage(Rendition original, List<Rendition> renditions) {
+    this.original = original;
+    this.renditions = renditions;
+  }
+
+  /**
+   * After-handler asking for the {@link #CLIENT_HINTS}; only pages reference images, so it is skipped for assets,
+   * redirects and the like.
+   */
+  public static void requestClientHints(Context ctx) {
+    var contentType = ctx.res.getContentType();
+    if (contentType != null && contentType.startsWith(HTML)) {
+      ctx.header(ACCEPT_CH, CLIENT_HINTS);
+    }
+  }
+
+  public static ResponsiveImage create(StaticAsset asset, int[] widths, float quality) throws IOException {
+    var image = ImageIO.read(new ByteArrayInputStream(asset.getIdentity().getContent()));
+    if (image == null) {
+      throw new RuntimeException(String.format("Can't decode image '%s'!", asset.getPath()));
+    }
+
+    var hash = asset.getIdentity().getEtag().replace("\"", "");
+    var original = new Rendition(image.getWidth(), asset.getContentType(), asset.getIdentity());
+    var renditions = new ArrayList<Rendition>();
+    var webp = ImageIO.getImageWritersByMIMEType(WEBP).hasNext();
+
+    for (var width : widths) {
+      if (width >= image.getWidth()) {
+        continue;
+      }
+      var resized = resize(image, width);
+      renditions.add(encode(resized, hash, JPEG, quality));
+      if (webp) {
+        renditions.add(encode(resized, hash, WEBP, quality));
+      }
+    }
+    if (webp) {
+      renditions.add(encode(toRgb(image), hash, WEBP, quality));
+    }
+    renditions.sort(Comparator.comparingInt(Rendition::getWidth));
+
+    LOG.info("Generated {} renditions of '{}' ({} bytes): {}", renditions.size(), asset.getPath(),
+        asset.getIdentity().getContent().length, renditions);
+    return new ResponsiveImage(original, List.copyOf(renditions));
+  }
+
+  public Rendition select(Context ctx) {
+    var accept = ctx.header("Accept");
+    var webp = accept != null && accept.contains(WEBP);
+    var requested = requestedWidth(ctx);
+
+    Rendition result = null;
+    for (var rendition : renditions) {
+      if (rendition.getContentType().equals(WEBP) && !webp) {
+        continue;
+      }
+      if (requested > 0 && rendition.getWidth() >= requested
+          || requested <= 0 && rendition.getWidth() == original.getWidth()) {
+        // renditions are sorted by width, so for the same width a webp rendition replaces the jpeg one
+        if (result == null || result.getWidth() == rendition.getWidth()) {
+          result = rendition;
+        }
+      }
+    }
+    return result != null ? result : original;
+  }
+
+  private static double requestedWidth(Context ctx) {
+    var viewportWidth = hint(ctx, "Sec-CH-Viewport-Width", "Viewport-Width");
+    if (viewportWidth <= 0) {
+      return -1;
+    }
+    var dpr = hint(ctx, "Sec-CH-DPR", "DPR");
+    return viewportWidth * Math.min(Math.max(dpr, 1), 4);
+  }
+
+  private static double hint(Context ctx, String... headers) {
+    for (var header : headers) {
+      var value = ctx.header(header);
+      if (value != null) {
+        try {
+          return Double.parseDouble(value.strip());
+        } catch (NumberFormatException e) {
+          return -1;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static BufferedImage resize(BufferedImage image, int width) {
+    // halve in steps and finish with one bilinear pass; a single pass aliases badly for large factors
+    var current = toRgb(image);
+    while (current.getWidth() / 2 >= width) {
+      current = scale(current, current.getWidth() / 2);
+    }
+    return current.getWidth() == width ? current : scale(current, width);
+  }
+
+  private static BufferedImage scale(BufferedImage image, int width) {
+    var height = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+    var result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    var graphics = result.createGraphics();
+    try {
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.drawImage(image, 0, 0, width, height, null);
+    } finally {
+      graphics.dispose();
+    }
+    return result;
+  }
+
+  private static BufferedImage toRgb(BufferedImage image) {
+    if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+      return image;
+    }
+    return scale(image, image.getWidth());
+  }
+
+  private static Rendition encode(BufferedImage image, String hash, String contentType, float quality)
+      throws IOException {
+    var writer = ImageIO.getImageWritersByMIMEType(contentType).next();
+    var out = new ByteArrayOutputStream();
+    try (var stream = new MemoryCacheImageOutputStream(out)) {
+      writer.setOutput(stream);
+      var param = writer.getDefaultWriteParam();
+      if (param.canWriteCompressed()) {
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        if (param.getCompressionType() == null) {
+          param.setCompressionType(param.getCompressionTypes()[0]);
+        }
+        param.setCompressionQuality(quality);
+      }
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+
+    var suffix = contentType.substring(contentType.indexOf('/') + 1);
+    var etag = "\"" + hash + "-w" + image.getWidth() + "-" + suffix + "\"";
+    return new Rendition(image.getWidth(), contentType, new Variant(null, etag, out.toByteArray()));
+  }
+
+  @Value
+  public static class Rendition {
+    private final int width;
+    private final String contentType;
+    private final Variant variant;
+
+    @Override
+    public String toString() {
+      return String.format("%dw %s (%d bytes)", width, contentType, variant.getContent().length);
+    }
+  }
+}
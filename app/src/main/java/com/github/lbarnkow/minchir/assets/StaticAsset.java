@@ -0,0 +1,24 @@
+package com.github.lbarnkow.minchir.assets;
+
+import lombok.Value;
+
+@Value
+public class StaticAsset {
+  public static final String GZIP = "gzip";
+
+  private final String path;
+  private final String fingerprintedPath;
+  private final String contentType;
+  private final Variant identity;
+  private final Variant gzip;
+
+  /**
+   * One representation of an asset; {@code encoding} is {@code null} for the uncompressed one.
+   */
+  @Value
+  public static class Variant {
+    private final String encoding;
+    private final String etag;
+    private final byte[] content;
+  }
+}
@@ -0,0 +1,286 @@
+package com.github.lbarnkow.minchir.assets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.MimeTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.assets.StaticAsset.Variant;
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.util.ContextUtil;
+
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.NotFoundResponse;
+
+/**
+ * Serves the files below the static assets folder from memory. Every file is reachable by its plain path and by a
+ * fingerprinted path containing a hash of its content (e.g. {@code css/site.0123456789abcdef.css}), which templates
+ * reference through {@link #getTemplateVariables()}. Fingerprinted responses are cacheable forever; plain ones must be
+ * revalidated through their strong ETag.
+ * <p>
+ * The gzip variant is prepared at startup, unless a {@code .gz} file (e.g. compressed with {@code zopfli}) sits next to
+ * the asset. It is only kept if it is noticeably smaller than the original.
+ */
+public class StaticAssets implements Handler {
+
+  public static final String TEMPLATE_VARIABLE_PREFIX = "asset_";
+  public static final int FINGERPRINT_LENGTH = 16;
+
+  public static final String CACHE_IMMUTABLE = "public, max-age=31536000, immutable";
+  public static final String CACHE_REVALIDATE = "no-cache";
+
+  /**
+   * Compressed variants must save at least this fraction of the original size to be served.
+   */
+  public static final double MIN_COMPRESSION_SAVINGS = 0.1;
+
+  private static final Map<String, String> SIDECAR_EXTENSIONS = Map.of(".gz", StaticAsset.GZIP);
+
+  private static final Logger LOG = LoggerFactory.getLogger(StaticAssets.class);
+
+  private static final Map<String, String> EXTRA_MIME_TYPES = Map.of( //
+      "webmanifest", "application/manifest+json", //
+      "ico", "image/x-icon");
+
+  private final Map<String, StaticAsset> byPath;
+  private final Map<String, StaticAsset> byFingerprintedPath;
+  private final Map<String, String> templateVariables;
+  private final Map<String, ResponsiveImage> images;
+
+  public StaticAssets(Collection<StaticAsset> assets) {
+    this(assets, Map.of());
+  }
+
+  public StaticAssets(Collection<StaticAsset> assets, Map<String, ResponsiveImage> images) {
+    this.images = images;
+    byPath = assets.stream().collect(Collectors.toUnmodifiableMap(StaticAsset::getPath, a -> a));
+    byFingerprintedPath =
+        assets.stream().collect(Collectors.toUnmodifiableMap(StaticAsset::getFingerprintedPath, a -> a));
+    templateVariables = assets.stream().collect(Collectors.toUnmodifiableMap( //
+        a -> TEMPLATE_VARIABLE_PREFIX + a.getPath().replaceAll("[^A-Za-z0-9]", "_"), //
+        a -> "/" + a.getFingerprintedPath()));
+  }
+
+  public static StaticAssets load(String folder) throws IOException {
+    return load(folder, null);
+  }
+
+  public static StaticAssets load(String folder, Config.Images imagesConfig) throws IOException {
+    var root = Path.of(folder).toAbsolutePath().normalize();
+    if (!Files.isDirectory(root)) {
+      throw new RuntimeException(String.format("Static assets folder '%s' doesn't exist!", root));
+    }
+
+    var files = new TreeMap<String, byte[]>();
+    try (var paths = Files.walk(root)) {
+      for (var file : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+        var path = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+        files.put(path, Files.readAllBytes(file));
+      }
+    }
+
+    var sidecars = new HashMap<String, Map<String, byte[]>>();
+    for (var extension : SIDECAR_EXTENSIONS.entrySet()) {
+      for (var path : List.copyOf(files.keySet())) {
+        var original = path.substring(0, path.length() - extension.getKey().length());
+        if (path.endsWith(extension.getKey()) && files.containsKey(original)) {
+          sidecars.computeIfAbsent(original, k -> new HashMap<>()).put(extension.getValue(), files.remove(path));
+        }
+      }
+    }
+
+    var assets = new ArrayList<StaticAsset>();
+    var bytes = 0L;
+    var gzipBytes = 0L;
+    for (var file : files.entrySet()) {
+      var asset = load(file.getKey(), file.getValue(), sidecars.getOrDefault(file.getKey(), Map.of()));
+      assets.add(asset);
+
+      bytes += asset.getIdentity().getContent().length;
+      gzipBytes += asset.getGzip() != null ? asset.getGzip().getContent().length : 0;
+    }
+
+    LOG.info("Loaded {} static assets ({} bytes, {} bytes gzip).", assets.size(), bytes, gzipBytes);
+    return new StaticAssets(assets, loadImages(assets, imagesConfig));
+  }
+
+  private static Map<String, ResponsiveImage> loadImages(List<StaticAsset> assets, Config.Images config)
+      throws IOException {
+    if (config == null || config.getResponsive() == null || config.getResponsive().isBlank()) {
+      return Map.of();
+    }
+
+    var widths = Arrays.stream(config.getWidths().split(",")).map(String::strip).mapToInt(Integer::parseInt).toArray();
+    var byPath = assets.stream().collect(Collectors.toMap(StaticAsset::getPath, a -> a));
+    var result = new HashMap<String, ResponsiveImage>();
+
+    for (var path : config.getResponsive().split(",")) {
+      var asset = byPath.get(path.strip());
+      if (asset == null) {
+        throw new RuntimeException(String.format("Responsive image '%s' isn't a static asset!", path.strip()));
+      }
+      result.put(asset.getPath(), ResponsiveImage.create(asset, widths, config.getQuality()));
+    }
+
+    return Map.copyOf(result);
+  }
+
+  public static StaticAsset load(String path, byte[] content, Map<String, byte[]> precompressed) throws IOException {
+    var hash = hash(content);
+    var fingerprint = hash.substring(0, FINGERPRINT_LENGTH);
+
+    var name = path.substring(path.lastIndexOf('/') + 1);
+    var dot = name.lastIndexOf('.');
+    var fingerprintedPath = dot > 0 //
+        ? path.substring(0, path.length() - name.length() + dot) + "." + fingerprint + name.substring(dot) //
+        : path + "." + fingerprint;
+
+    var gzip = precompressed.get(StaticAsset.GZIP);
+    if (gzip == null) {
+      gzip = gzip(content);
+    }
+
+    return new StaticAsset(path, fingerprintedPath, contentType(name), //
+        new Variant(null, "\"" + hash + "\"", content), //
+        variant(StaticAsset.GZIP, hash, content, gzip));
+  }
+
+  private static Variant variant(String encoding, String hash, byte[] original, byte[] compressed) {
+    if (compressed == null || compressed.length > original.length * (1 - MIN_COMPRESSION_SAVINGS)) {
+      return null;
+    }
+    // each representation needs its own strong validator
+    return new Variant(encoding, "\"" + hash + "-" + encoding + "\"", compressed);
+  }
+
+  private static byte[] gzip(byte[] content) throws IOException {
+    var out = new ByteArrayOutputStream(content.length / 2);
+    try (var gzip = new GZIPOutputStream(out) {
+      {
+        def.setLevel(Deflater.BEST_COMPRESSION);
+      }
+    }) {
+      gzip.write(content);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Maps template variable names (e.g. {@code asset_css_site_css} for {@code css/site.css}) to the fingerprinted,
+   * root-absolute URLs of all assets. Error pages are rendered once and served below any path, so the URLs must not
+   * be relative.
+   */
+  public Map<String, String> getTemplateVariables() {
+    return templateVariables;
+  }
+
+  public boolean hasResponsiveImages() {
+    return !images.isEmpty();
+  }
+
+  public StaticAsset get(String path) {
+    var asset = byFingerprintedPath.get(path);
+    return asset != null ? asset : byPath.get(path);
+  }
+
+  @Override
+  public void handle(Context ctx) {
+    var path = ctx.path().substring(1);
+
+    var asset = byFingerprintedPath.get(path);
+    var cacheControl = CACHE_IMMUTABLE;
+    if (asset == null) {
+      asset = byPath.get(path);
+      cacheControl = CACHE_REVALIDATE;
+    }
+    if (asset == null) {
+      throw new NotFoundResponse();
+    }
+
+    var variant = asset.getIdentity();
+    var contentType = asset.getContentType();
+    var image = images.get(asset.getPath());
+    if (image != null) {
+      var rendition = image.select(ctx);
+      variant = rendition.getVariant();
+      contentType = rendition.getContentType();
+      ctx.header(HttpHeader.VARY.asString(), ResponsiveImage.VARY);
+    } else if (asset.getGzip() != null && ContextUtil.acceptsEncoding(ctx, StaticAsset.GZIP)) {
+      variant = asset.getGzip();
+    }
+
+    ctx.header(HttpHeader.CACHE_CONTROL.asString(), cacheControl);
+    ctx.header(HttpHeader.ETAG.asString(), variant.getEtag());
+    if (image == null && asset.getGzip() != null) {
+      ctx.header(HttpHeader.VARY.asString(), HttpHeader.ACCEPT_ENCODING.asString());
+    }
+
+    if (matches(ctx.header(HttpHeader.IF_NONE_MATCH.asString()), variant.getEtag())) {
+      ctx.status(HttpStatus.NOT_MODIFIED_304);
+      return;
+    }
+
+    if (variant.getEncoding() != null) {
+      // also keeps javalin from compressing the response again
+      ctx.header(HttpHeader.CONTENT_ENCODING.asString(), variant.getEncoding());
+    }
+    ctx.contentType(contentType);
+    ctx.result(variant.getContent());
+  }
+
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+
+    for (var candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.strip();
+      // If-None-Match uses weak comparison, so a weakened tag of ours still matches
+      if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String contentType(String name) {
+    var extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+    var contentType = EXTRA_MIME_TYPES.get(extension);
+    if (contentType == null) {
+      contentType = MimeTypes.getDefaultMimeByExtension(name);
+    }
+    return contentType != null ? contentType : "application/octet-stream";
+  }
+
+  private static String hash(byte[] content) {
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(content);
+      var result = new StringBuilder(digest.length * 2);
+      for (var b : digest) {
+        result.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return result.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
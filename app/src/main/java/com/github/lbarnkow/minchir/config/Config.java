@@ -16,6 +16,17 @@ import lombok.Data;
 public class Config {
 
   private Server server;
+  private Images images;
+  private Compression compression;
+  private Templates templates;
+  private Reload reload;
+  private Admin admin;
+  private Metrics metrics;
+  private Health health;
+  private Profiling profiling;
+  private Timing timing;
+  private Tracing tracing;
+  private AccessLog accessLog;
   private Csrf csrf;
   private Hydra hydra;
   private Ldap ldap;
@@ -23,6 +34,12 @@ public class Config {
   @Data
   public static class Server {
     private Integer port;
+    private Boolean h2c;
+    private Boolean virtualThreads;
+    private ThreadPool threadPool;
+    private Connector connector;
+    private ConcurrencyLimit concurrencyLimit;
+    private Tls tls;
     private String assetsPath;
 
     public String getAssetsPath(String subfolder) {
@@ -30,6 +47,125 @@ public class Config {
     }
   }
 
+  @Data
+  public static class ThreadPool {
+    private Integer minThreads;
+    private Integer maxThreads;
+    private Integer idleTimeoutMilliseconds;
+    private Integer queueCapacity;
+    private Integer shedQueueSize;
+    private Integer retryAfterSeconds;
+  }
+
+  @Data
+  public static class Connector {
+    private Integer acceptors;
+    private Integer selectors;
+    private Integer acceptQueueSize;
+    private Long idleTimeoutMilliseconds;
+  }
+
+  @Data
+  public static class ConcurrencyLimit {
+    private Boolean enabled;
+    private Integer initialLimit;
+    private Integer minLimit;
+    private Integer maxLimit;
+    private Float tolerance;
+    private Float newFlowShare;
+    private Integer retryAfterSeconds;
+  }
+
+  @Data
+  public static class Tls {
+    private Integer port;
+    private String keyStorePath;
+    private String keyStorePassword;
+    private String keyStoreType;
+    private Boolean http2;
+  }
+
+  @Data
+  public static class Images {
+    private String responsive;
+    private String widths;
+    private Float quality;
+  }
+
+  @Data
+  public static class Compression {
+    private Boolean gzip;
+    private Integer gzipLevel;
+    private Boolean brotli;
+    private Integer brotliLevel;
+    private Integer minSizeBytes;
+  }
+
+  @Data
+  public static class Templates {
+    private String engine;
+    private Long modificationCheckIntervalSeconds;
+  }
+
+  @Data
+  public static class Admin {
+    private Boolean enabled;
+    private String host;
+    private Integer port;
+    private Integer maxThreads;
+  }
+
+  @Data
+  public static class Metrics {
+    private Boolean enabled;
+    private String path;
+  }
+
+  @Data
+  public static class Health {
+    private String livePath;
+    private String readyPath;
+    private Long intervalMilliseconds;
+    private Long timeoutMilliseconds;
+  }
+
+  @Data
+  public static class Profiling {
+    private Boolean enabled;
+    private String path;
+    private String settings;
+    private Long maxDurationSeconds;
+    private Long maxSizeBytes;
+  }
+
+  @Data
+  public static class Timing {
+    private Boolean header;
+    private Boolean log;
+  }
+
+  @Data
+  public static class Tracing {
+    private Boolean enabled;
+    private Float sampleRatio;
+    private String exporter;
+    private String file;
+    private String endpoint;
+  }
+
+  @Data
+  public static class AccessLog {
+    private Boolean enabled;
+    private Float sampleRatio;
+    private Float slowMilliseconds;
+  }
+
+  @Data
+  public static class Reload {
+    private Boolean enabled;
+    private Long debounceMilliseconds;
+  }
+
   @Data
   public static class Csrf {
     private Integer totpTtlSeconds;
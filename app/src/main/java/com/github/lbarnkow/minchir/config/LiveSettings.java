@@ -0,0 +1,50 @@
+package com.github.lbarnkow.minchir.config;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the current {@link Settings}. Reloaded settings are published by swapping the whole (immutable) snapshot, so
+ * a request that fetched its snapshot once never observes a mix of old and new values.
+ */
+public class LiveSettings implements Supplier<Settings> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LiveSettings.class);
+
+  private final AtomicReference<Settings> current;
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  public LiveSettings(Settings settings) {
+    current = new AtomicReference<>(settings);
+  }
+
+  @Override
+  public Settings get() {
+    return current.get();
+  }
+
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  public void update(Settings settings) {
+    current.set(settings);
+
+    for (var listener : listeners) {
+      try {
+        listener.settingsChanged(settings);
+      } catch (Exception e) {
+        LOG.error("Failed to apply reloaded settings to {}!", listener, e);
+      }
+    }
+  }
+
+  public interface Listener {
+    void settingsChanged(Settings settings) throws Exception;
+  }
+}
@@ -0,0 +1,319 @@
+package com.github.lbarnkow.minchir.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * A translation containing placeholders, parsed once when the translations are loaded. Supported syntax:
+ * <ul>
+ * <li>{@code {name}} is replaced by the value of {@code name}.</li>
+ * <li>{@code {count, plural, =0 {no items} one {# item} other {# items}}} picks a variant by exact value or by the
+ * language's {@link PluralRules plural category}; {@code #} stands for the number (except in {@code &#...;}).</li>
+ * </ul>
+ * Braces not forming a placeholder are kept as text. Instances are immutable, so they can be shared by all requests.
+ */
+public class Message {
+
+  private static final String PLURAL = "plural";
+
+  private final String source;
+  private final Part[] parts;
+
+  private Message(String source, Part[] parts) {
+    this.source = source;
+    this.parts = parts;
+  }
+
+  /**
+   * Returns the parsed message, or {@code null} if {@code text} contains no placeholders.
+   */
+  public static Message parse(String text, PluralRules pluralRules) {
+    return parse(text, pluralRules, UnaryOperator.identity());
+  }
+
+  /**
+   * Like {@link #parse(String, PluralRules)}, but passes the literal text (everything but the placeholders) through
+   * {@code literals}, e.g. to escape it. Escaping before parsing would let {@code #} in {@code &#39;} become a
+   * number.
+   */
+  public static Message parse(String text, PluralRules pluralRules, UnaryOperator<String> literals) {
+    if (text.indexOf('{') < 0) {
+      return null;
+    }
+
+    var parser = new Parser(text, pluralRules, literals);
+    var parts = parser.parseParts(false);
+    for (var part : parts) {
+      if (!(part instanceof Text)) {
+        return new Message(text, parts);
+      }
+    }
+    return null;
+  }
+
+  public String format(Map<String, ?> args) {
+    var result = new StringBuilder(source.length() + 32);
+    format(parts, args, null, result);
+    return result.toString();
+  }
+
+  @Override
+  public String toString() {
+    return source;
+  }
+
+  private static void format(Part[] parts, Map<String, ?> args, String number, StringBuilder result) {
+    for (var part : parts) {
+      part.append(args, number, result);
+    }
+  }
+
+  private interface Part {
+    void append(Map<String, ?> args, String number, StringBuilder result);
+  }
+
+  private static class Text implements Part {
+    private final String text;
+
+    private Text(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public void append(Map<String, ?> args, String number, StringBuilder result) {
+      result.append(text);
+    }
+  }
+
+  private static class NumberSign implements Part {
+    @Override
+    public void append(Map<String, ?> args, String number, StringBuilder result) {
+      result.append(number != null ? number : "#");
+    }
+  }
+
+  private static class Argument implements Part {
+    private final String name;
+    private final String source;
+
+    private Argument(String name, String source) {
+      this.name = name;
+      this.source = source;
+    }
+
+    @Override
+    public void append(Map<String, ?> args, String number, StringBuilder result) {
+      var value = args.get(name);
+      // like velocity references, unresolved placeholders are rendered as written
+      result.append(value != null ? value.toString() : source);
+    }
+  }
+
+  private static class Plural implements Part {
+    private final String name;
+    private final String source;
+    private final PluralRules rules;
+    private final Map<Long, Part[]> exact;
+    private final Map<String, Part[]> categories;
+
+    private Plural(String name, String source, PluralRules rules, Map<Long, Part[]> exact,
+        Map<String, Part[]> categories) {
+      this.name = name;
+      this.source = source;
+      this.rules = rules;
+      this.exact = exact;
+      this.categories = categories;
+    }
+
+    @Override
+    public void append(Map<String, ?> args, String number, StringBuilder result) {
+      var value = args.get(name);
+      if (value == null) {
+        result.append(source);
+        return;
+      }
+
+      var n = toLong(value);
+      Part[] variant = null;
+      if (n != null) {
+        variant = exact.get(n);
+        if (variant == null) {
+          variant = categories.get(rules.select(Math.abs(n)));
+        }
+      }
+      if (variant == null) {
+        variant = categories.get(PluralRules.OTHER);
+      }
+
+      format(variant, args, value.toString(), result);
+    }
+
+    private static Long toLong(Object value) {
+      if (value instanceof Number) {
+        return ((Number) value).longValue();
+      }
+      try {
+        return Long.valueOf(value.toString().strip());
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+  }
+
+  private static class Parser {
+    private final String text;
+    private final PluralRules pluralRules;
+    private final UnaryOperator<String> literals;
+    private int pos;
+
+    private Parser(String text, PluralRules pluralRules, UnaryOperator<String> literals) {
+      this.text = text;
+      this.pluralRules = pluralRules;
+      this.literals = literals;
+    }
+
+    private Part[] parseParts(boolean nested) {
+      var parts = new ArrayList<Part>();
+      var literal = new StringBuilder();
+
+      while (pos < text.length()) {
+        var c = text.charAt(pos);
+
+        if (nested && c == '}') {
+          break;
+        }
+        if (nested && c == '#' && !(pos > 0 && text.charAt(pos - 1) == '&')) {
+          flush(literal, parts);
+          parts.add(new NumberSign());
+          pos++;
+          continue;
+        }
+        if (c == '{') {
+          var start = pos;
+          var placeholder = parsePlaceholder();
+          if (placeholder != null) {
+            flush(literal, parts);
+            parts.add(placeholder);
+            continue;
+          }
+          pos = start;
+        }
+
+        literal.append(c);
+        pos++;
+      }
+
+      flush(literal, parts);
+      return parts.toArray(new Part[0]);
+    }
+
+    private Part parsePlaceholder() {
+      var start = pos++;
+      var name = identifier();
+      if (name == null) {
+        return null;
+      }
+
+      skipWhitespace();
+      if (peek('}')) {
+        pos++;
+        return new Argument(name, literals.apply(text.substring(start, pos)));
+      }
+      if (!peek(',')) {
+        return null;
+      }
+      pos++;
+
+      skipWhitespace();
+      if (!PLURAL.equals(identifier())) {
+        throw error(start, "unsupported placeholder type");
+      }
+      skipWhitespace();
+      if (!peek(',')) {
+        throw error(start, "expected ',' after 'plural'");
+      }
+      pos++;
+
+      var exact = new HashMap<Long, Part[]>();
+      var categories = new HashMap<String, Part[]>();
+      while (true) {
+        skipWhitespace();
+        if (peek('}')) {
+          pos++;
+          break;
+        }
+
+        var selector = selector();
+        if (selector == null) {
+          throw error(start, "expected a plural category or '=<number>'");
+        }
+        skipWhitespace();
+        if (!peek('{')) {
+          throw error(start, String.format("expected '{' after '%s'", selector));
+        }
+        pos++;
+        var variant = parseParts(true);
+        if (!peek('}')) {
+          throw error(start, "unterminated plural variant");
+        }
+        pos++;
+
+        if (selector.startsWith("=")) {
+          exact.put(Long.valueOf(selector.substring(1)), variant);
+        } else {
+          categories.put(selector, variant);
+        }
+      }
+
+      if (!categories.containsKey(PluralRules.OTHER)) {
+        throw error(start, "plural placeholders need an 'other' variant");
+      }
+      return new Plural(name, literals.apply(text.substring(start, pos)), pluralRules, Map.copyOf(exact),
+          Map.copyOf(categories));
+    }
+
+    private String identifier() {
+      var start = pos;
+      while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+        pos++;
+      }
+      return pos > start ? text.substring(start, pos) : null;
+    }
+
+    private String selector() {
+      if (peek('=')) {
+        var start = pos++;
+        while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+          pos++;
+        }
+        return pos > start + 1 ? text.substring(start, pos) : null;
+      }
+      return identifier();
+    }
+
+    private void skipWhitespace() {
+      while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    private boolean peek(char c) {
+      return pos < text.length() && text.charAt(pos) == c;
+    }
+
+    private void flush(StringBuilder literal, List<Part> parts) {
+      if (literal.length() > 0) {
+        parts.add(new Text(literals.apply(literal.toString())));
+        literal.setLength(0);
+      }
+    }
+
+    private RuntimeException error(int start, String problem) {
+      return new RuntimeException(
+          String.format("Failed to parse message '%s' (column %d): %s!", text, start + 1, problem));
+    }
+  }
+}
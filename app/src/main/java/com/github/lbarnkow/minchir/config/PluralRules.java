@@ -0,0 +1,46 @@
+package com.github.lbarnkow.minchir.config;
+
+import java.util.Map;
+
+/**
+ * Cardinal plural categories ({@code one}, {@code few}, {@code many}, {@code other}) for the languages minchir is
+ * likely to be translated to, following the CLDR rules for integers. Languages without an entry use the English rule.
+ */
+public interface PluralRules {
+
+  String ONE = "one";
+  String FEW = "few";
+  String MANY = "many";
+  String OTHER = "other";
+
+  PluralRules ENGLISH = n -> n == 1 ? ONE : OTHER;
+  PluralRules FRENCH = n -> n == 0 || n == 1 ? ONE : OTHER;
+  PluralRules POLISH = n -> n == 1 ? ONE : isFew(n) ? FEW : MANY;
+  PluralRules RUSSIAN = n -> n % 10 == 1 && n % 100 != 11 ? ONE : isFew(n) ? FEW : MANY;
+  PluralRules CZECH = n -> n == 1 ? ONE : n >= 2 && n <= 4 ? FEW : OTHER;
+  PluralRules NONE = n -> OTHER;
+
+  Map<String, PluralRules> LANGUAGES = Map.ofEntries( //
+      Map.entry("fr", FRENCH), //
+      Map.entry("pt", FRENCH), //
+      Map.entry("pl", POLISH), //
+      Map.entry("ru", RUSSIAN), //
+      Map.entry("uk", RUSSIAN), //
+      Map.entry("cs", CZECH), //
+      Map.entry("sk", CZECH), //
+      Map.entry("ja", NONE), //
+      Map.entry("ko", NONE), //
+      Map.entry("zh", NONE));
+
+  String select(long n);
+
+  static PluralRules forLanguage(String language) {
+    return LANGUAGES.getOrDefault(language, ENGLISH);
+  }
+
+  private static boolean isFew(long n) {
+    var mod10 = n % 10;
+    var mod100 = n % 100;
+    return mod10 >= 2 && mod10 <= 4 && (mod100 < 12 || mod100 > 14);
+  }
+}
@@ -0,0 +1,90 @@
+package com.github.lbarnkow.minchir.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.lbarnkow.minchir.util.BoundedCache;
+
+import lombok.Value;
+
+/**
+ * Translated titles and claim texts for all known scopes, indexed per language when the settings are loaded. The
+ * consent page's scope list for a given set of requested scopes is cached as well.
+ */
+public class ScopeIndex {
+
+  public static final int SCOPE_LISTS_CACHE_SIZE = 256;
+
+  private final Translations translations;
+  private final Map<String, Map<String, Entry>> languages;
+  private final BoundedCache<ScopeListKey, Map<String, List<String>>> scopeLists =
+      new BoundedCache<>(SCOPE_LISTS_CACHE_SIZE);
+
+  public ScopeIndex(Translations translations, Scopes scopes) {
+    this.translations = translations;
+
+    var index = new HashMap<String, Map<String, Entry>>();
+    for (var language : translations.getLanguages()) {
+      var table = translations.get(language);
+      var entries = new HashMap<String, Entry>();
+
+      for (var scope : scopes.getScopes()) {
+        entries.put(scope, buildEntry(table, scope, scopes.getClaims(scope)));
+      }
+
+      index.put(language, Map.copyOf(entries));
+    }
+    languages = Map.copyOf(index);
+  }
+
+  /**
+   * Returns an unmodifiable map from each requested scope's title to the texts of its claims, in request order.
+   */
+  public Map<String, List<String>> getScopeList(String language, List<String> scopes) {
+    if (!languages.containsKey(language)) {
+      language = Translations.DEFAULT_LANGUAGE;
+    }
+    return scopeLists.get(new ScopeListKey(language, List.copyOf(scopes)), this::buildScopeList);
+  }
+
+  private Map<String, List<String>> buildScopeList(ScopeListKey key) {
+    var entries = languages.getOrDefault(key.getLanguage(), Map.of());
+    var result = new LinkedHashMap<String, List<String>>();
+
+    for (var scope : key.getScopes()) {
+      var entry = entries.get(scope);
+      if (entry == null) {
+        entry = buildEntry(translations.get(key.getLanguage()), scope, null);
+      }
+      result.put(entry.getTitle(), entry.getClaims());
+    }
+
+    return Collections.unmodifiableMap(result);
+  }
+
+  private static Entry buildEntry(Map<String, String> table, String scope, List<String> claims) {
+    var claimTexts = new ArrayList<String>();
+    if (claims != null) {
+      for (var claim : claims) {
+        claimTexts.add(table.get("claim_" + claim));
+      }
+    }
+    return new Entry(table.get("scope_" + scope), Collections.unmodifiableList(claimTexts));
+  }
+
+  @Value
+  private static class Entry {
+    private final String title;
+    private final List<String> claims;
+  }
+
+  @Value
+  private static class ScopeListKey {
+    private final String language;
+    private final List<String> scopes;
+  }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.github.lbarnkow.minchir.util.YamlLoader;
 
@@ -14,6 +15,10 @@ public class Scopes {
 
   private final Map<String, List<String>> scopes;
 
+  public Set<String> getScopes() {
+    return scopes.keySet();
+  }
+
   public List<String> getClaims(String scope) {
     return scopes.get(scope);
   }
@@ -7,4 +7,12 @@ public class Settings {
   private final Config config;
   private final Translations translations;
   private final Scopes scopes;
+  private final ScopeIndex scopeIndex;
+
+  public Settings(Config config, Translations translations, Scopes scopes) {
+    this.config = config;
+    this.translations = translations;
+    this.scopes = scopes;
+    this.scopeIndex = new ScopeIndex(translations, scopes);
+  }
 }
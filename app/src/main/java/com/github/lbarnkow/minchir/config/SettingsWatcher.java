@@ -0,0 +1,126 @@
+package com.github.lbarnkow.minchir.config;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the config, translation and scope files and publishes freshly loaded {@link Settings} to
+ * {@link LiveSettings} once the files have been quiet for the debounce period. If loading fails, the current settings
+ * stay in place.
+ * <p>
+ * Only values read per request (translations, scopes, LDAP search attributes, ...) pick up changes this way; server,
+ * LDAP connection, Hydra and CSRF settings still require a restart.
+ */
+public class SettingsWatcher implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SettingsWatcher.class);
+
+  private final LiveSettings settings;
+  private final Supplier<Settings> loader;
+  private final long debounceMilliseconds;
+
+  private final WatchService watchService;
+  private final Map<WatchKey, Set<String>> watchedFiles = new HashMap<>();
+  private final Thread thread;
+
+  public SettingsWatcher(LiveSettings settings, Supplier<Settings> loader, Collection<String> files,
+      long debounceMilliseconds) throws IOException {
+    this.settings = settings;
+    this.loader = loader;
+    this.debounceMilliseconds = debounceMilliseconds;
+
+    watchService = FileSystems.getDefault().newWatchService();
+
+    var byFolder = new HashMap<Path, Set<String>>();
+    for (var file : files) {
+      var path = Path.of(file).toAbsolutePath().normalize();
+      byFolder.computeIfAbsent(path.getParent(), k -> new HashSet<>()).add(path.getFileName().toString());
+    }
+    for (var folder : byFolder.entrySet()) {
+      var key = folder.getKey().register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+      watchedFiles.put(key, folder.getValue());
+    }
+
+    thread = new Thread(this::run, "settings-watcher");
+    thread.setDaemon(true);
+  }
+
+  public void start() {
+    LOG.info("Watching {} for changes.", watchedFiles.values());
+    thread.start();
+  }
+
+  @Override
+  public void close() throws IOException {
+    thread.interrupt();
+    watchService.close();
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        if (!isRelevant(watchService.take())) {
+          continue;
+        }
+
+        // wait until the files have been quiet for a while; editors and config map updates touch files repeatedly
+        WatchKey key;
+        while ((key = watchService.poll(debounceMilliseconds, TimeUnit.MILLISECONDS)) != null) {
+          isRelevant(key);
+        }
+
+        reload();
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      LOG.debug("Stopped watching for settings changes.");
+    }
+  }
+
+  private boolean isRelevant(WatchKey key) {
+    var files = watchedFiles.get(key);
+    var relevant = false;
+
+    for (var event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        relevant = true;
+        continue;
+      }
+      var name = event.context().toString();
+      // kubernetes updates mounted config maps by swapping a '..data' symlink
+      relevant |= files.contains(name) || name.startsWith("..");
+    }
+
+    key.reset();
+    return relevant;
+  }
+
+  private void reload() {
+    try {
+      var start = System.nanoTime();
+      settings.update(loader.get());
+      LOG.info("Reloaded settings in {} ms.", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } catch (Exception e) {
+      LOG.error("Failed to reload settings, keeping the current ones!", e);
+    }
+  }
+}
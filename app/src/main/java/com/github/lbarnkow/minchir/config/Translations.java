@@ -7,24 +7,78 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
 
+import com.github.lbarnkow.minchir.util.BoundedCache;
+import com.github.lbarnkow.minchir.util.HtmlEscaper;
+
 import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
 public class Translations {
+  public static final String DEFAULT_LANGUAGE = "en";
+  public static final int NEGOTIATION_CACHE_SIZE = 1024;
+  public static final int NEGOTIATION_CACHE_MAX_HEADER_LENGTH = 256;
+
+  private static final Logger LOG = LoggerFactory.getLogger(Translations.class);
+
   private final Map<String, Map<String, String>> languages;
+  private final Map<String, Map<String, Message>> messages;
+  private final BoundedCache<String, String> negotiated = new BoundedCache<>(NEGOTIATION_CACHE_SIZE);
+
+  public Set<String> getLanguages() {
+    return languages.keySet();
+  }
 
   public Map<String, String> get(String language) {
     var result = languages.get(language);
     if (result == null) {
-      result = languages.get("en");
+      result = languages.get(DEFAULT_LANGUAGE);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the language's translations containing placeholders, parsed into {@link Message}s.
+   */
+  public Map<String, Message> getMessages(String language) {
+    var result = messages.get(language);
+    if (result == null) {
+      result = messages.get(DEFAULT_LANGUAGE);
     }
     return result;
   }
 
+  /**
+   * Picks the best available language for an {@code Accept-Language} header, honoring q-values and falling back from
+   * regional variants (e.g. {@code de-AT}) to their base language. Results are cached per raw header value.
+   */
+  public String negotiate(String acceptLanguage) {
+    if (acceptLanguage == null || acceptLanguage.isBlank()) {
+      return DEFAULT_LANGUAGE;
+    }
+    if (acceptLanguage.length() > NEGOTIATION_CACHE_MAX_HEADER_LENGTH) {
+      return lookup(acceptLanguage);
+    }
+    return negotiated.get(acceptLanguage, this::lookup);
+  }
+
+  private String lookup(String acceptLanguage) {
+    try {
+      var language = Locale.lookupTag(Locale.LanguageRange.parse(acceptLanguage), languages.keySet());
+      return language != null ? language : DEFAULT_LANGUAGE;
+    } catch (IllegalArgumentException e) {
+      LOG.debug("Ignoring malformed Accept-Language header '{}'!", acceptLanguage);
+      return DEFAULT_LANGUAGE;
+    }
+  }
+
   public static Translations load(String... paths) {
     try {
       var files = loadFiles(paths);
@@ -35,16 +89,36 @@ public class Translations {
       }
 
       var global = mergedTable.remove("global");
-      for (var languageTable : mergedTable.values()) {
-        languageTable.putAll(global);
+      var messages = new HashMap<String, Map<String, Message>>();
+      for (var language : mergedTable.entrySet()) {
+        var table = language.getValue();
+        table.putAll(global);
+        // messages are parsed from the raw texts, sanitizing their literal parts only
+        messages.put(language.getKey(), parseMessages(language.getKey(), table));
+        table.replaceAll((key, text) -> HtmlEscaper.sanitize(text));
+        language.setValue(Map.copyOf(table));
       }
 
-      return new Translations(mergedTable);
+      return new Translations(Map.copyOf(mergedTable), Map.copyOf(messages));
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
   }
 
+  private static Map<String, Message> parseMessages(String language, Map<String, String> table) {
+    var pluralRules = PluralRules.forLanguage(language);
+    var result = new HashMap<String, Message>();
+
+    for (var entry : table.entrySet()) {
+      var message = Message.parse(entry.getValue(), pluralRules, HtmlEscaper::sanitize);
+      if (message != null) {
+        result.put(entry.getKey(), message);
+      }
+    }
+
+    return Map.copyOf(result);
+  }
+
   private static List<Map<String, ?>> loadFiles(String[] paths) throws IOException {
     var yaml = new Yaml();
     var result = new ArrayList<Map<String, ?>>();
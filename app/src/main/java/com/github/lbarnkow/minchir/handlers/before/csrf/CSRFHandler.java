@@ -8,6 +8,10 @@ import org.slf4j.LoggerFactory;
 
 import com.github.lbarnkow.minchir.config.Config;
 import com.github.lbarnkow.minchir.config.Settings;
+import com.github.lbarnkow.minchir.handlers.before.csrf.CSRFSupplier.CSRFData;
+import com.github.lbarnkow.minchir.metrics.Histogram;
+import com.github.lbarnkow.minchir.metrics.Metrics;
+import com.github.lbarnkow.minchir.metrics.RequestTimings;
 
 import io.javalin.http.BadRequestResponse;
 import io.javalin.http.Context;
@@ -34,17 +38,24 @@ public class CSRFHandler implements Handler {
   }
 
   @Override
+  @SuppressWarnings("try") // timings only need to be closed
   public void handle(Context ctx) throws Exception {
-    if ("GET".equals(ctx.method())) {
-      createCsrfTokens(ctx);
+    try (var timings = RequestTimings.bind(ctx)) {
+      if ("GET".equals(ctx.method())) {
+        createCsrfTokens(ctx);
 
-    } else if ("POST".equals(ctx.method())) {
-      verifiyCsrfTokens(ctx);
+      } else if ("POST".equals(ctx.method())) {
+        verifiyCsrfTokens(ctx);
+      }
     }
   }
 
+  @SuppressWarnings("try") // timer only needs to be closed
   public void createCsrfTokens(Context ctx) throws InvalidKeyException {
-    var csrf = csrfSupplier.generate();
+    CSRFData csrf;
+    try (var timer = Metrics.CSRF_DURATION.labels("generate").startTimer("csrfGenerate")) {
+      csrf = csrfSupplier.generate();
+    }
 
     var cookie = new Cookie(CSRF_TOKEN_COOKIE_NAME, csrf.getCookie(), ctx.path(),
         config.getCsrf().getTotpTtlSeconds() * 2, true, 0, true, null, null, SameSite.STRICT);
@@ -53,8 +64,9 @@ public class CSRFHandler implements Handler {
   }
 
   private void verifiyCsrfTokens(Context ctx) {
-    try {
+    try (var timer = Metrics.CSRF_DURATION.labels("verify").startTimer("csrfVerify").outcome("invalid")) {
       csrfSupplier.verify(ctx.formParam(CSRF_TOKEN_FORM_PARAM_NAME), ctx.cookie(CSRF_TOKEN_COOKIE_NAME));
+      timer.outcome(Histogram.Timer.OK);
 
       ctx.attribute(CSRF_TOKEN_FORM_PARAM_NAME, ctx.formParam(CSRF_TOKEN_FORM_PARAM_NAME));
     } catch (Exception e) {
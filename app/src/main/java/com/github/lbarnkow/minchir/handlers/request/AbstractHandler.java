@@ -4,41 +4,74 @@ import static io.javalin.apibuilder.ApiBuilder.before;
 import static io.javalin.apibuilder.ApiBuilder.get;
 import static io.javalin.apibuilder.ApiBuilder.post;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.eclipse.jetty.http.HttpHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.lbarnkow.minchir.config.LiveSettings;
 import com.github.lbarnkow.minchir.config.Settings;
 import com.github.lbarnkow.minchir.handlers.before.csrf.CSRFHandler;
 import com.github.lbarnkow.minchir.hydra.OryHydraAdminApi;
+import com.github.lbarnkow.minchir.logging.RequestContext;
+import com.github.lbarnkow.minchir.metrics.Metrics;
+import com.github.lbarnkow.minchir.metrics.RequestTimings;
+import com.github.lbarnkow.minchir.server.ConcurrencyLimiter;
+import com.github.lbarnkow.minchir.templates.PageRenderer;
+import com.github.lbarnkow.minchir.templates.TemplateRenderer;
+import com.github.lbarnkow.minchir.tracing.Tracer;
+import com.github.lbarnkow.minchir.util.ContextUtil;
 import com.github.lbarnkow.minchir.util.TemplateModel;
 
 import io.javalin.apibuilder.EndpointGroup;
 import io.javalin.http.Context;
-import io.javalin.http.Handler;
+import io.javalin.http.ServiceUnavailableResponse;
 
 public abstract class AbstractHandler implements EndpointGroup {
 
   private static final Logger LOG = LoggerFactory.getLogger(AbstractHandler.class);
+  private static final Logger TIMING_LOG = LoggerFactory.getLogger("minchir.timing");
+
+  private static final String SERVER_TIMING = "Server-Timing";
+  private static final String PERMIT = ConcurrencyLimiter.Permit.class.getName();
 
-  protected final Settings settings;
+  protected final LiveSettings liveSettings;
+  private final PageRenderer pages;
 
   protected final OryHydraAdminApi hydraAdmin;
   private final CSRFHandler csrfHandler;
+  private final ConcurrencyLimiter limiter;
 
   private final String template;
-
-
-  public AbstractHandler(Settings settings, OryHydraAdminApi hydraAdmin, CSRFHandler csrfHandler) {
-    this.settings = settings;
+  private final Executor executor;
+  private final boolean timingHeader;
+  private final boolean timingLog;
+
+  public AbstractHandler(LiveSettings liveSettings, PageRenderer pages, OryHydraAdminApi hydraAdmin,
+      CSRFHandler csrfHandler, ConcurrencyLimiter limiter, Executor executor) {
+    this.liveSettings = liveSettings;
+    this.pages = pages;
     this.hydraAdmin = hydraAdmin;
     this.csrfHandler = csrfHandler;
+    this.limiter = limiter;
+    this.executor = executor;
 
     if (needsCsrf() && csrfHandler == null) {
       throw new RuntimeException(String.format(
           "%s needs a csrf handler, but no handler was supplied in constructor call!", getClass().getSimpleName()));
     }
 
-    template = settings.getConfig().getServer().getAssetsPath("templates") + getRoute() + ".vtl";
+    template = getRoute().substring(1);
+    if (!pages.contains(template)) {
+      throw new RuntimeException(String.format("%s needs a template named '%s%s', but none was loaded!",
+          getClass().getSimpleName(), template, TemplateRenderer.TEMPLATE_SUFFIX));
+    }
+
+    var config = liveSettings.get().getConfig();
+    timingHeader = Boolean.TRUE.equals(config.getTiming().getHeader());
+    timingLog = Boolean.TRUE.equals(config.getTiming().getLog());
   }
 
   public abstract String getRoute();
@@ -47,28 +80,141 @@ public abstract class AbstractHandler implements EndpointGroup {
 
   @Override
   public void addEndpoints() {
+    // also carries the flow name to stages deeper down (e.g. for flight recorder events), so it is always set up
+    before(getRoute(), ctx -> RequestTimings.begin(ctx, template));
     if (csrfHandler != null) {
       before(getRoute(), csrfHandler);
     }
-    get(getRoute(), ctx -> logExceptions(ctx, this::doGet));
-    post(getRoute(), ctx -> logExceptions(ctx, this::doPost));
+    // requests are admitted as completing a flow that is already in progress: a POST always does, a GET only if
+    // hydra lets it skip the form; GETs showing the form start a new flow and are checked again (see doGet)
+    get(getRoute(), ctx -> dispatch(ctx, this::doGet));
+    post(getRoute(), ctx -> dispatch(ctx, this::doPost));
+  }
+
+  private void dispatch(Context ctx, RequestHandler handler) throws Exception {
+    var permit = acquire(ctx);
+
+    if (executor == null) {
+      try {
+        logExceptions(ctx, handler);
+      } finally {
+        release(permit);
+      }
+      return;
+    }
+
+    // hand the (blocking) ldap and hydra calls over to the executor (virtual threads), freeing the jetty thread
+    var future = new CompletableFuture<Void>();
+    ctx.future(future);
+    executor.execute(() -> {
+      try {
+        logExceptions(ctx, handler);
+        future.complete(null);
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      } finally {
+        release(permit);
+      }
+    });
+  }
+
+  private ConcurrencyLimiter.Permit acquire(Context ctx) {
+    if (limiter == null) {
+      return null;
+    }
+    var permit = limiter.tryAcquire(true);
+    if (permit == null) {
+      reject(ctx);
+    }
+    ctx.attribute(PERMIT, permit);
+    return permit;
+  }
+
+  /**
+   * Applies the concurrency limit's share for new flows, once a request turned out to start one.
+   */
+  protected void admitNewFlow(Context ctx) {
+    ConcurrencyLimiter.Permit permit = ctx.attribute(PERMIT);
+    if (permit != null && !permit.startsNewFlow()) {
+      reject(ctx);
+    }
   }
 
-  private void logExceptions(Context ctx, Handler handler) throws Exception {
-    try {
-      handler.handle(ctx);
+  private void reject(Context ctx) {
+    LOG.warn("Rejecting {} {}, concurrency limit of {} reached.", ctx.method(), ctx.path(), limiter.getLimit());
+    var retryAfter = liveSettings.get().getConfig().getServer().getConcurrencyLimit().getRetryAfterSeconds();
+    ctx.header(HttpHeader.RETRY_AFTER.asString(), String.valueOf(retryAfter));
+    throw new ServiceUnavailableResponse();
+  }
+
+  private static void release(ConcurrencyLimiter.Permit permit) {
+    if (permit != null) {
+      permit.release();
+    }
+  }
+
+  @SuppressWarnings("try") // log context, timings and timer only need to be closed
+  private void logExceptions(Context ctx, RequestHandler handler) throws Exception {
+    try (var span = Tracer.startServerSpan(ctx.method() + " " + getRoute(), ctx.header(Tracer.TRACEPARENT));
+        var logContext = RequestContext.bind(ctx);
+        var timings = RequestTimings.bind(ctx);
+        var timer = Metrics.HANDLER_DURATION.labels(template, ctx.method()).startTimer()) {
+      span.attribute("http.method", ctx.method()).attribute("http.route", getRoute());
+      try {
+        // every request works with one settings snapshot, even if they are reloaded in between
+        handler.handle(ctx, liveSettings.get());
+        span.attribute("http.status_code", ctx.status());
+      } catch (Exception e) {
+        span.recordError(e);
+        throw e;
+      }
+    } catch (ServiceUnavailableResponse e) {
+      // rejected by the concurrency limit, which already logged it
+      throw e;
     } catch (Exception e) {
       LOG.error("Error handling {} for {}!", ctx.req.getMethod(), getRoute(), e);
+      recordOutcome(Metrics.ERROR);
       throw e;
+    } finally {
+      reportTimings(ctx);
     }
   }
 
-  public void doGet(Context ctx) throws Exception {
-    var language = ctx.req.getLocale().getLanguage();
+  private void reportTimings(Context ctx) {
+    var timings = RequestTimings.of(ctx);
+    if (timings == null) {
+      return;
+    }
+    if (timingHeader) {
+      ctx.header(SERVER_TIMING, timings.toServerTiming());
+    }
+    if (timingLog) {
+      TIMING_LOG.info("flow={} method={} status={} {}", template, ctx.method(), ctx.status(), timings.toLogFields());
+    }
+  }
+
+  protected void recordOutcome(String outcome) {
+    Metrics.FLOW_OUTCOMES.inc(template, outcome);
+  }
+
+  public void doGet(Context ctx, Settings settings) throws Exception {
+    // showing the form starts a new flow
+    admitNewFlow(ctx);
+    renderForm(ctx, settings);
+  }
+
+  protected void renderForm(Context ctx, Settings settings) throws Exception {
+    var language = ContextUtil.getLanguage(ctx, settings.getTranslations());
     LOG.debug("Rendering template '{}' in language '{}'.", template, language);
-    var model = new TemplateModel(ctx.attributeMap(), settings.getTranslations().get(language));
-    ctx.render(template, model);
+    var translations = settings.getTranslations();
+    var model = new TemplateModel(ctx.attributeMap(), translations.get(language), translations.getMessages(language),
+        pages.getGlobals());
+    pages.render(ctx, template, model);
   }
 
-  public abstract void doPost(Context ctx) throws Exception;
+  public abstract void doPost(Context ctx, Settings settings) throws Exception;
+
+  private interface RequestHandler {
+    void handle(Context ctx, Settings settings) throws Exception;
+  }
 }
@@ -1,16 +1,18 @@
 package com.github.lbarnkow.minchir.handlers.request;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.lbarnkow.minchir.config.LiveSettings;
 import com.github.lbarnkow.minchir.config.Settings;
 import com.github.lbarnkow.minchir.handlers.before.csrf.CSRFHandler;
 import com.github.lbarnkow.minchir.hydra.OryHydraAdminApi;
 import com.github.lbarnkow.minchir.hydra.model.consent.ConsentChallenge;
+import com.github.lbarnkow.minchir.metrics.Metrics;
+import com.github.lbarnkow.minchir.server.ConcurrencyLimiter;
+import com.github.lbarnkow.minchir.templates.PageRenderer;
 import com.github.lbarnkow.minchir.util.ContextUtil;
 
 import io.javalin.http.BadRequestResponse;
@@ -20,8 +22,9 @@ public class ConsentHandler extends AbstractHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(ConsentHandler.class);
 
-  public ConsentHandler(Settings settings, OryHydraAdminApi hydraAdmin, CSRFHandler csrfHandler) throws Exception {
-    super(settings, hydraAdmin, csrfHandler);
+  public ConsentHandler(LiveSettings liveSettings, PageRenderer pages, OryHydraAdminApi hydraAdmin,
+      CSRFHandler csrfHandler, ConcurrencyLimiter limiter, Executor executor) throws Exception {
+    super(liveSettings, pages, hydraAdmin, csrfHandler, limiter, executor);
   }
 
   @Override
@@ -35,7 +38,7 @@ public class ConsentHandler extends AbstractHandler {
   }
 
   @Override
-  public void doGet(Context ctx) throws Exception {
+  public void doGet(Context ctx, Settings settings) throws Exception {
     LOG.debug("Handling {} for {}", ctx.req.getMethod(), getRoute());
 
     var consentChallenge = hydraAdmin.fetchConsentChallenge(ContextUtil.getQueryParam(ctx, "consent_challenge"));
@@ -46,6 +49,7 @@ public class ConsentHandler extends AbstractHandler {
       var acceptResponse = hydraAdmin.acceptConsent(ctx, consentChallenge.getChallenge(),
           consentChallenge.getRequested_scope(), consentChallenge.getRequested_access_token_audience(), true);
       ctx.redirect(acceptResponse.getRedirect_to());
+      recordOutcome(Metrics.SKIP);
     } else {
       LOG.debug("Rendering consent page.");
 
@@ -57,14 +61,14 @@ public class ConsentHandler extends AbstractHandler {
       ctx.attribute("client", client);
       ctx.attribute("subject", consentChallenge.getSubject());
 
-      prepareScopesAndClaims(ctx, consentChallenge);
+      prepareScopesAndClaims(ctx, settings, consentChallenge);
 
-      super.doGet(ctx);
+      super.doGet(ctx, settings);
     }
   }
 
   @Override
-  public void doPost(Context ctx) throws Exception {
+  public void doPost(Context ctx, Settings settings) throws Exception {
     LOG.debug("Handling {} for {}", ctx.req.getMethod(), getRoute());
 
     var consentChallenge = ContextUtil.getFormParam(ctx, "consent_challenge");
@@ -80,6 +84,7 @@ public class ConsentHandler extends AbstractHandler {
       LOG.debug("User submitted via cancel button.");
       var rejectResponse = hydraAdmin.rejectConsent(ctx, consentChallenge);
       ctx.redirect(rejectResponse.getRedirect_to());
+      recordOutcome(Metrics.CANCEL);
       return;
     }
 
@@ -91,31 +96,11 @@ public class ConsentHandler extends AbstractHandler {
     var acceptResponse = hydraAdmin.acceptConsent(ctx, consentChallengeObj.getChallenge(),
         consentChallengeObj.getRequested_scope(), consentChallengeObj.getRequested_access_token_audience(), rememberMe);
     ctx.redirect(acceptResponse.getRedirect_to());
+    recordOutcome(Metrics.SUCCESS);
   }
 
-  private void prepareScopesAndClaims(Context ctx, ConsentChallenge challenge) {
-    var language = ctx.req.getLocale().getLanguage();
-
-    var translations = settings.getTranslations().get(language);
-    var scopes = challenge.getRequested_scope();
-
-    var result = new LinkedHashMap<String, List<String>>();
-
-    for (var scope : scopes) {
-      var scopeText = translations.get("scope_" + scope);
-      var scopeClaims = new ArrayList<String>();
-
-      var claims = settings.getScopes().getClaims(scope);
-      if (claims != null) {
-        for (var claim : claims) {
-          var claimText = translations.get("claim_" + claim);
-          scopeClaims.add(claimText);
-        }
-      }
-
-      result.put(scopeText, scopeClaims);
-    }
-
-    ctx.attribute("scopes", result);
+  private void prepareScopesAndClaims(Context ctx, Settings settings, ConsentChallenge challenge) {
+    var language = ContextUtil.getLanguage(ctx, settings.getTranslations());
+    ctx.attribute("scopes", settings.getScopeIndex().getScopeList(language, challenge.getRequested_scope()));
   }
 }
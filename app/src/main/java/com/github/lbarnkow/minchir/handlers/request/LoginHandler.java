@@ -1,22 +1,34 @@
 package com.github.lbarnkow.minchir.handlers.request;
 
+import java.util.concurrent.Executor;
+
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.config.LiveSettings;
 import com.github.lbarnkow.minchir.config.Settings;
 import com.github.lbarnkow.minchir.handlers.before.csrf.CSRFHandler;
 import com.github.lbarnkow.minchir.hydra.OryHydraAdminApi;
+import com.github.lbarnkow.minchir.metrics.Histogram;
+import com.github.lbarnkow.minchir.metrics.Metrics;
+import com.github.lbarnkow.minchir.server.ConcurrencyLimiter;
+import com.github.lbarnkow.minchir.templates.PageRenderer;
+import com.github.lbarnkow.minchir.tracing.Span;
+import com.github.lbarnkow.minchir.tracing.Tracer;
 import com.github.lbarnkow.minchir.util.ContextUtil;
 import com.unboundid.ldap.sdk.Filter;
 import com.unboundid.ldap.sdk.LDAPConnection;
+import com.unboundid.ldap.sdk.LDAPConnectionOptions;
 import com.unboundid.ldap.sdk.LDAPConnectionPool;
 import com.unboundid.ldap.sdk.LDAPException;
 import com.unboundid.ldap.sdk.LDAPURL;
 import com.unboundid.ldap.sdk.ResultCode;
 import com.unboundid.ldap.sdk.SearchRequest;
+import com.unboundid.ldap.sdk.SearchResult;
 import com.unboundid.ldap.sdk.SearchScope;
 
 import io.javalin.http.BadRequestResponse;
@@ -29,26 +41,35 @@ public class LoginHandler extends AbstractHandler {
 
   private final SSLSocketFactory sslSocketFactory = SSLContext.getDefault().getSocketFactory();
   private final LDAPConnectionPool ldap;
+  private LDAPConnectionPool healthLdap;
 
-  public LoginHandler(Settings settings, OryHydraAdminApi hydraAdmin, CSRFHandler csrfHandler) throws Exception {
-    super(settings, hydraAdmin, csrfHandler);
+  public LoginHandler(LiveSettings liveSettings, PageRenderer pages, OryHydraAdminApi hydraAdmin,
+      CSRFHandler csrfHandler, ConcurrencyLimiter limiter, Executor executor) throws Exception {
+    super(liveSettings, pages, hydraAdmin, csrfHandler, limiter, executor);
 
-    var ldapConfig = settings.getConfig().getLdap();
+    var config = liveSettings.get().getConfig();
+    ldap = new LDAPConnectionPool(connect(config.getLdap(), new LDAPConnectionOptions()), 1);
+
+    Metrics.LDAP_POOL.set(ldap::getCurrentAvailableConnections, "available");
+    Metrics.LDAP_POOL.set(ldap::getMaximumAvailableConnections, "max");
+    var stats = ldap.getConnectionPoolStatistics();
+    Metrics.LDAP_POOL_CHECKOUTS.set(stats::getNumSuccessfulCheckouts, "success");
+    Metrics.LDAP_POOL_CHECKOUTS.set(stats::getNumFailedCheckouts, "failure");
+
+    LOG.info("Successfully established LDAP connection and performed bind request.");
+  }
+
+  private LDAPConnection connect(Config.Ldap ldapConfig, LDAPConnectionOptions options) throws LDAPException {
     LDAPURL ldapUrl = new LDAPURL(ldapConfig.getServerUrl());
-    LDAPConnection con;
 
     if ("ldaps".equals(ldapUrl.getScheme())) {
       LOG.debug("Using TLS secured sockets.");
-      con = new LDAPConnection(sslSocketFactory, ldapUrl.getHost(), ldapUrl.getPort(), ldapConfig.getBindDn(),
-          ldapConfig.getBindPassword());
-    } else {
-      LOG.warn("Connecting to LDAP server through INSECURE, UNENCRYPTED socket!");
-      con = new LDAPConnection(ldapUrl.getHost(), ldapUrl.getPort(), ldapConfig.getBindDn(),
-          ldapConfig.getBindPassword());
+      return new LDAPConnection(sslSocketFactory, options, ldapUrl.getHost(), ldapUrl.getPort(),
+          ldapConfig.getBindDn(), ldapConfig.getBindPassword());
     }
-    ldap = new LDAPConnectionPool(con, 1);
-
-    LOG.info("Successfully established LDAP connection and performed bind request.");
+    LOG.warn("Connecting to LDAP server through INSECURE, UNENCRYPTED socket!");
+    return new LDAPConnection(options, ldapUrl.getHost(), ldapUrl.getPort(), ldapConfig.getBindDn(),
+        ldapConfig.getBindPassword());
   }
 
   @Override
@@ -62,7 +83,7 @@ public class LoginHandler extends AbstractHandler {
   }
 
   @Override
-  public void doGet(Context ctx) throws Exception {
+  public void doGet(Context ctx, Settings settings) throws Exception {
     LOG.debug("Handling {} for {}", ctx.req.getMethod(), getRoute());
 
     var loginChallenge = hydraAdmin.fetchLoginChallenge(ContextUtil.getQueryParam(ctx, "login_challenge"));
@@ -73,14 +94,15 @@ public class LoginHandler extends AbstractHandler {
       var acceptResponse =
           hydraAdmin.acceptLogin(ctx, loginChallenge.getChallenge(), loginChallenge.getSubject(), true);
       ctx.redirect(acceptResponse.getRedirect_to());
+      recordOutcome(Metrics.SKIP);
     } else {
       LOG.debug("Rendering login page.");
-      super.doGet(ctx);
+      super.doGet(ctx, settings);
     }
   }
 
   @Override
-  public void doPost(Context ctx) throws Exception {
+  public void doPost(Context ctx, Settings settings) throws Exception {
     LOG.debug("Handling {} for {}", ctx.req.getMethod(), getRoute());
 
     var loginChallenge = ContextUtil.getFormParam(ctx, "login_challenge");
@@ -96,6 +118,7 @@ public class LoginHandler extends AbstractHandler {
       LOG.debug("User submitted via cancel button.");
       var rejectResponse = hydraAdmin.rejectLogin(ctx, loginChallenge);
       ctx.redirect(rejectResponse.getRedirect_to());
+      recordOutcome(Metrics.CANCEL);
       return;
     }
 
@@ -108,23 +131,47 @@ public class LoginHandler extends AbstractHandler {
     // Check the validity of the LoginChallenge *before* testing the credentials
     var loginChallengeObj = hydraAdmin.fetchLoginChallenge(loginChallenge);
 
-    if (checkLogin(username, password, totp)) {
+    if (checkLogin(settings, username, password, totp)) {
       LOG.info("User '{}' successfully logged in.", username);
       var acceptResponse = hydraAdmin.acceptLogin(ctx, loginChallengeObj.getChallenge(), username, rememberMe);
       ctx.redirect(acceptResponse.getRedirect_to());
+      recordOutcome(Metrics.SUCCESS);
       return;
     }
 
     // Try again, friend...
+    recordOutcome(Metrics.BAD_CREDENTIALS);
     ctx.attribute("error_bad_credentials", true);
     ctx.attribute("login_challenge", loginChallenge);
     ctx.attribute("username", username);
     ctx.attribute("rememberme", rememberMe);
-    super.doGet(ctx);
+    renderForm(ctx, settings);
     ctx.status(HttpCode.UNAUTHORIZED);
   }
 
-  private boolean checkLogin(String username, String password, String totp) throws LDAPException {
+  /**
+   * Health check: a cheap round trip over a dedicated connection, bounded by the health check timeout.
+   */
+  public void checkLdap() throws LDAPException {
+    healthLdap().getRootDSE();
+  }
+
+  /**
+   * The health check gets its own connection, so it neither waits for nor blocks logins, and gives up in time. It is
+   * only opened once a probe runs, so instances without health checks don't hold a second bound connection.
+   */
+  private synchronized LDAPConnectionPool healthLdap() throws LDAPException {
+    if (healthLdap == null) {
+      var config = liveSettings.get().getConfig();
+      var options = new LDAPConnectionOptions();
+      options.setConnectTimeoutMillis(config.getHealth().getTimeoutMilliseconds().intValue());
+      options.setResponseTimeoutMillis(config.getHealth().getTimeoutMilliseconds());
+      healthLdap = new LDAPConnectionPool(connect(config.getLdap(), options), 1);
+    }
+    return healthLdap;
+  }
+
+  private boolean checkLogin(Settings settings, String username, String password, String totp) throws LDAPException {
     var ldapConfig = settings.getConfig().getLdap();
     LOG.debug("Trying to authenticate user '{}' against LDAP server.", username);
 
@@ -140,17 +187,33 @@ public class LoginHandler extends AbstractHandler {
           ldapConfig.getUserSearchBaseDn(), SearchScope.SUB, filter, //
           "dn", ldapConfig.getUserAttributeUid(), ldapConfig.getUserAttributeGivenName(), //
           ldapConfig.getUserAttributeSurname(), ldapConfig.getUserAttributeMail());
-      var search = con.search(searchRequest);
+      SearchResult search;
+      try (var span = ldapSpan("ldap search");
+          var timer = Metrics.LDAP_DURATION.labels("search").startTimer("ldapSearch") //
+              .outcome(Histogram.Timer.ERROR)) {
+        search = con.search(searchRequest);
+        span.attribute("ldap.entries", search.getEntryCount());
+        timer.outcome(search.getResultCode().getName());
+      }
 
       var success = false;
       var count = search.getEntryCount();
 
       if (count == 1) {
         var userDn = search.getSearchEntries().get(0).getDN();
-        try {
-          var bind = con.bind(userDn, password + totp);
-
-          success = (bind.getResultCode() == ResultCode.SUCCESS);
+        try (var span = ldapSpan("ldap bind");
+            var timer = Metrics.LDAP_DURATION.labels("bind").startTimer("ldapBind")) {
+          try {
+            var bind = con.bind(userDn, password + totp);
+
+            success = (bind.getResultCode() == ResultCode.SUCCESS);
+            span.attribute("ldap.result", bind.getResultCode().getName());
+            timer.outcome(bind.getResultCode().getName());
+          } catch (LDAPException e) {
+            span.attribute("ldap.result", e.getResultCode().getName());
+            timer.outcome(e.getResultCode().getName());
+            throw e;
+          }
         } catch (LDAPException e) {
           LOG.info("Failed bind request for user '{}'; reason: {}", username, e.getResultString());
         }
@@ -169,4 +232,8 @@ public class LoginHandler extends AbstractHandler {
       throw e;
     }
   }
+
+  private static Span ldapSpan(String name) {
+    return Tracer.startSpan(name).kind("CLIENT").attribute("db.system", "ldap");
+  }
 }
@@ -1,11 +1,17 @@
 package com.github.lbarnkow.minchir.handlers.request;
 
+import java.util.concurrent.Executor;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.lbarnkow.minchir.config.LiveSettings;
 import com.github.lbarnkow.minchir.config.Settings;
 import com.github.lbarnkow.minchir.handlers.before.csrf.CSRFHandler;
 import com.github.lbarnkow.minchir.hydra.OryHydraAdminApi;
+import com.github.lbarnkow.minchir.metrics.Metrics;
+import com.github.lbarnkow.minchir.server.ConcurrencyLimiter;
+import com.github.lbarnkow.minchir.templates.PageRenderer;
 import com.github.lbarnkow.minchir.util.ContextUtil;
 
 import io.javalin.http.BadRequestResponse;
@@ -15,8 +21,9 @@ public class LogoutHandler extends AbstractHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(LogoutHandler.class);
 
-  public LogoutHandler(Settings settings, OryHydraAdminApi hydraAdmin, CSRFHandler csrfHandler) throws Exception {
-    super(settings, hydraAdmin, csrfHandler);
+  public LogoutHandler(LiveSettings liveSettings, PageRenderer pages, OryHydraAdminApi hydraAdmin,
+      CSRFHandler csrfHandler, ConcurrencyLimiter limiter, Executor executor) throws Exception {
+    super(liveSettings, pages, hydraAdmin, csrfHandler, limiter, executor);
   }
 
   @Override
@@ -30,7 +37,7 @@ public class LogoutHandler extends AbstractHandler {
   }
 
   @Override
-  public void doGet(Context ctx) throws Exception {
+  public void doGet(Context ctx, Settings settings) throws Exception {
     LOG.debug("Handling {} for {}", ctx.req.getMethod(), getRoute());
 
     var logoutChallengeParam = ContextUtil.getQueryParam(ctx, "logout_challenge");
@@ -41,16 +48,17 @@ public class LogoutHandler extends AbstractHandler {
       LOG.debug("Skipping logout form as it was not initiated by the relying party (client app)!");
       var acceptResponse = hydraAdmin.acceptLogout(ctx, logoutChallengeParam);
       ctx.redirect(acceptResponse.getRedirect_to());
+      recordOutcome(Metrics.SKIP);
     } else {
       LOG.debug("Rendering logout page.");
       ctx.attribute("subject", logoutChallenge.getSubject());
 
-      super.doGet(ctx);
+      super.doGet(ctx, settings);
     }
   }
 
   @Override
-  public void doPost(Context ctx) throws Exception {
+  public void doPost(Context ctx, Settings settings) throws Exception {
     LOG.debug("Handling {} for {}", ctx.req.getMethod(), getRoute());
 
     var logoutChallenge = ContextUtil.getFormParam(ctx, "logout_challenge");
@@ -66,6 +74,7 @@ public class LogoutHandler extends AbstractHandler {
       LOG.debug("User submitted via cancel button.");
       hydraAdmin.rejectLogout(ctx, logoutChallenge);
       ctx.redirect("https://www.github.com/"); // TODO
+      recordOutcome(Metrics.CANCEL);
       return;
     }
 
@@ -74,5 +83,6 @@ public class LogoutHandler extends AbstractHandler {
     LOG.info("Subject '{}' logged out.", logoutChallengeObj.getSubject());
     var acceptResponse = hydraAdmin.acceptLogout(ctx, logoutChallenge);
     ctx.redirect(acceptResponse.getRedirect_to());
+    recordOutcome(Metrics.SUCCESS);
   }
 }
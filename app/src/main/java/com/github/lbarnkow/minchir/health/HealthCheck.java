@@ -0,0 +1,8 @@
+package com.github.lbarnkow.minchir.health;
+
+/**
+ * A check of a backend the app depends on; it is considered healthy unless it throws.
+ */
+public interface HealthCheck {
+  void check() throws Exception;
+}
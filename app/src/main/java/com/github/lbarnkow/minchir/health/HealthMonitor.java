@@ -0,0 +1,201 @@
+package com.github.lbarnkow.minchir.health;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.metrics.Metrics;
+import com.google.gson.Gson;
+
+import io.javalin.Javalin;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.HttpCode;
+
+/**
+ * Runs the registered health checks periodically in the background and keeps the result as pre-serialized JSON, so
+ * liveness and readiness probes are answered in constant time without putting load on LDAP or Hydra.
+ * <p>
+ * A check that timed out may still be stuck (not every client reacts to interrupts); it is reported as down and not
+ * started again until that run returned, so each check occupies at most one thread.
+ */
+public class HealthMonitor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HealthMonitor.class);
+
+  private static final Gson GSON = new Gson();
+  private static final byte[] LIVE = "{\"status\":\"UP\"}".getBytes(StandardCharsets.UTF_8);
+  private static final int MAX_CHECKS = 8;
+
+  private final Config.Health config;
+  private final Map<String, HealthCheck> checks = new LinkedHashMap<>();
+  private final Set<String> running = ConcurrentHashMap.newKeySet();
+  private final ExecutorService runner =
+      new ThreadPoolExecutor(0, MAX_CHECKS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), HealthMonitor::daemon);
+
+  private volatile Snapshot snapshot = new Snapshot(false, Map.of());
+  private volatile boolean stopping;
+
+  private ScheduledExecutorService scheduler;
+
+  public HealthMonitor(Config.Health config) {
+    this.config = config;
+  }
+
+  public HealthMonitor register(String name, HealthCheck check) {
+    if (checks.size() >= MAX_CHECKS) {
+      throw new RuntimeException(String.format("Can't register health check '%s', at most %d are supported!", name,
+          MAX_CHECKS));
+    }
+    checks.put(name, check);
+    return this;
+  }
+
+  /**
+   * Runs the checks while the given app is running; readiness turns false as soon as the app begins to stop.
+   */
+  public void attachTo(Javalin main) {
+    main.events(event -> {
+      event.serverStarted(this::start);
+      event.serverStopping(this::stop);
+    });
+  }
+
+  public void handleLiveness(Context ctx) {
+    ctx.contentType(ContentType.JSON);
+    ctx.result(LIVE);
+  }
+
+  public void handleReadiness(Context ctx) {
+    var current = snapshot;
+    ctx.status(current.ready && !stopping ? HttpCode.OK : HttpCode.SERVICE_UNAVAILABLE);
+    ctx.contentType(ContentType.JSON);
+    ctx.result(current.json);
+  }
+
+  public boolean isReady() {
+    return snapshot.ready && !stopping;
+  }
+
+  /**
+   * Runs all checks concurrently, each bounded by the configured timeout, and publishes the result.
+   */
+  public void runChecks() {
+    var futures = new LinkedHashMap<String, Future<?>>();
+    checks.forEach((name, check) -> futures.put(name, submit(name, check)));
+
+    var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getTimeoutMilliseconds());
+    var results = new LinkedHashMap<String, String>();
+    futures.forEach((name, future) -> {
+      var error = future != null ? await(name, future, deadline) : "previous check still running";
+      results.put(name, error);
+      Metrics.HEALTH_CHECK_UP.set(error == null ? () -> 1 : () -> 0, name);
+    });
+
+    var ready = results.values().stream().allMatch(error -> error == null);
+    if (ready != snapshot.ready) {
+      LOG.info("Readiness changed to {}: {}", ready ? "UP" : "DOWN", results);
+    }
+    snapshot = new Snapshot(ready, results);
+  }
+
+  /**
+   * @return the running check, or {@code null} if its previous run hasn't returned yet
+   */
+  private Future<?> submit(String name, HealthCheck check) {
+    if (!running.add(name)) {
+      return null;
+    }
+    return runner.submit(() -> {
+      try {
+        check.check();
+        return null;
+      } finally {
+        running.remove(name);
+      }
+    });
+  }
+
+  private static String await(String name, Future<?> future, long deadline) {
+    try {
+      future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      return null;
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      return "timed out";
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return "interrupted";
+    } catch (Exception e) {
+      var cause = e.getCause() != null ? e.getCause() : e;
+      LOG.debug("Health check '{}' failed!", name, cause);
+      return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+  }
+
+  private synchronized void start() {
+    stopping = false;
+    scheduler = Executors.newSingleThreadScheduledExecutor(HealthMonitor::daemon);
+    scheduler.scheduleWithFixedDelay(this::runChecksSafely, 0, config.getIntervalMilliseconds(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void stop() {
+    stopping = true;
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  private void runChecksSafely() {
+    try {
+      runChecks();
+    } catch (Exception e) {
+      LOG.error("Failed to run health checks!", e);
+    }
+  }
+
+  private static Thread daemon(Runnable runnable) {
+    var thread = new Thread(runnable, "health-check");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static class Snapshot {
+    private final boolean ready;
+    private final byte[] json;
+
+    private Snapshot(boolean ready, Map<String, String> results) {
+      this.ready = ready;
+
+      var checks = new LinkedHashMap<String, Object>();
+      results.forEach((name, error) -> {
+        var check = new LinkedHashMap<String, String>();
+        check.put("status", error == null ? "UP" : "DOWN");
+        if (error != null) {
+          check.put("error", error);
+        }
+        checks.put(name, check);
+      });
+      var body = new LinkedHashMap<String, Object>();
+      body.put("status", ready ? "UP" : "DOWN");
+      body.put("checks", checks);
+      this.json = GSON.toJson(body).getBytes(StandardCharsets.UTF_8);
+    }
+  }
+}
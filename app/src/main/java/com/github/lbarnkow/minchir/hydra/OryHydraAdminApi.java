@@ -33,4 +33,6 @@ public interface OryHydraAdminApi {
   LogoutAcceptResponse acceptLogout(Context ctx, String logoutChallenge) throws Exception;
 
   void rejectLogout(Context ctx, String logoutChallenge) throws Exception;
+
+  void checkHealth() throws Exception;
 }
@@ -7,15 +7,19 @@ import static org.eclipse.jetty.http.HttpHeader.CONTENT_TYPE;
 import static org.eclipse.jetty.http.HttpMethod.GET;
 import static org.eclipse.jetty.http.HttpMethod.PUT;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.util.StringContentProvider;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import com.github.lbarnkow.minchir.config.Config;
 import com.github.lbarnkow.minchir.config.Settings;
@@ -32,6 +36,11 @@ import com.github.lbarnkow.minchir.hydra.model.login.LoginReject;
 import com.github.lbarnkow.minchir.hydra.model.login.LoginRejectResponse;
 import com.github.lbarnkow.minchir.hydra.model.logout.LogoutAcceptResponse;
 import com.github.lbarnkow.minchir.hydra.model.logout.LogoutChallenge;
+import com.github.lbarnkow.minchir.logging.RequestContext;
+import com.github.lbarnkow.minchir.metrics.Counter;
+import com.github.lbarnkow.minchir.metrics.Histogram;
+import com.github.lbarnkow.minchir.metrics.Metrics;
+import com.github.lbarnkow.minchir.tracing.Tracer;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
@@ -62,6 +71,10 @@ public class OryHydraAdminApiImpl implements OryHydraAdminApi {
   private final String hydraLogoutAccept;
   private final String hydraLogoutReject;
 
+  private final String hydraHealth;
+
+  private final Map<String, Call> calls = new HashMap<>();
+
   private final HttpClient http;
 
   public OryHydraAdminApiImpl(Settings settings) throws Exception {
@@ -79,6 +92,15 @@ public class OryHydraAdminApiImpl implements OryHydraAdminApi {
     hydraLogoutAccept = hydraLogoutChallenge + "/accept";
     hydraLogoutReject = hydraLogoutChallenge + "/reject";
 
+    hydraHealth = config.getHydra().getAdminUrl() + "/health/ready";
+
+    for (var flow : List.of("login", "consent", "logout")) {
+      var base = config.getHydra().getAdminUrl() + "/oauth2/auth/requests/" + flow;
+      calls.put(base, new Call(flow, "fetch"));
+      calls.put(base + "/accept", new Call(flow, "accept"));
+      calls.put(base + "/reject", new Call(flow, "reject"));
+    }
+
     var sslContextFactory = new SslContextFactory.Client();
     http = new HttpClient(sslContextFactory);
     http.start();
@@ -181,6 +203,18 @@ public class OryHydraAdminApiImpl implements OryHydraAdminApi {
     contactOryHydra(hydraLogoutReject, PUT, CHALLENGE_NAME_LOGOUT, logoutChallenge);
   }
 
+  @Override
+  public void checkHealth() throws Exception {
+    var response = http.newRequest(hydraHealth) //
+        .method(GET) //
+        .timeout(config.getHydra().getTimeoutMilliseconds(), MILLISECONDS) //
+        .send();
+
+    if (response.getStatus() != OK.getStatus()) {
+      throw new RuntimeException(String.format("Ory hydra responded with status %d!", response.getStatus()));
+    }
+  }
+
   private String contactOryHydra(String url, HttpMethod method, String challengeName, String challengeValue)
       throws Exception {
     return contactOryHydra(url, method, challengeName, challengeValue, Optional.empty());
@@ -196,9 +230,36 @@ public class OryHydraAdminApiImpl implements OryHydraAdminApi {
 
     body.ifPresent(val -> request.content(new StringContentProvider(GSON.toJson(val))));
 
-    var response = request.send();
+    var call = calls.get(url);
+    ContentResponse response;
+    try (var span = Tracer.startSpan(call.stage).kind("CLIENT");
+        var timer = call.duration.startTimer(call.stage).outcome(Histogram.Timer.ERROR)) {
+      span.attribute("http.method", method.asString()).attribute("http.url", url);
+      var requestId = MDC.get(RequestContext.REQUEST_ID);
+      if (requestId != null) {
+        request.header(RequestContext.HEADER, requestId);
+      }
+      var traceparent = span.traceparent();
+      if (traceparent != null) {
+        // lets hydra's own traces join ours
+        request.header(Tracer.TRACEPARENT, traceparent);
+      }
+      try {
+        response = request.send();
+        var status = response.getStatus();
+        span.attribute("http.status_code", status);
+        timer.outcome(status == OK.getStatus() ? Histogram.Timer.OK : String.valueOf(status));
+      } catch (Exception e) {
+        span.recordError(e);
+        throw e;
+      }
+    } catch (Exception e) {
+      call.failures.inc();
+      throw e;
+    }
 
     if (response.getStatus() != OK.getStatus() || response.getMediaType() != APPLICATION_JSON.getMimeType()) {
+      call.failures.inc();
       LOG.warn("Failed to interact with ory hydra ({} - {}) for {} challenge '{}': {}", //
           method.asString(), //
           body != null ? body.getClass().getSimpleName() : "null", //
@@ -210,4 +271,20 @@ public class OryHydraAdminApiImpl implements OryHydraAdminApi {
 
     return response.getContentAsString();
   }
+
+  /**
+   * Metrics and timing stage name (e.g. {@code fetchLoginChallenge}, {@code acceptLogin}) of one admin api endpoint.
+   */
+  private static class Call {
+    private final String stage;
+    private final Histogram.Child duration;
+    private final Counter.Child failures;
+
+    private Call(String flow, String action) {
+      var flowName = Character.toUpperCase(flow.charAt(0)) + flow.substring(1);
+      this.stage = action + flowName + ("fetch".equals(action) ? "Challenge" : "");
+      this.duration = Metrics.HYDRA_DURATION.labels(flow, action);
+      this.failures = Metrics.HYDRA_FAILURES.labels(flow, action);
+    }
+  }
 }
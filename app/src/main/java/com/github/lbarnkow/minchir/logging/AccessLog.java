@@ -0,0 +1,42 @@
+package com.github.lbarnkow.minchir.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+
+import io.javalin.http.Context;
+import io.javalin.http.RequestLogger;
+
+/**
+ * Access log on the 'minchir.access' logger. Errors and slow requests are always logged, everything else only with
+ * the configured sample ratio, so the log stays useful without adding a line (and its cost) to every request.
+ */
+public class AccessLog implements RequestLogger {
+
+  private static final Logger ACCESS_LOG = LoggerFactory.getLogger("minchir.access");
+
+  private final double sampleRatio;
+  private final float slowMilliseconds;
+
+  public AccessLog(Config.AccessLog config) {
+    this.sampleRatio = config.getSampleRatio();
+    this.slowMilliseconds = config.getSlowMilliseconds();
+  }
+
+  @Override
+  public void handle(Context ctx, Float executionTimeMs) {
+    var status = ctx.status();
+    if (status < 400 && executionTimeMs < slowMilliseconds && !sampled()) {
+      return;
+    }
+    ACCESS_LOG.info("method={} path={} status={} duration_ms={} request_id={}", ctx.method(), ctx.path(), status,
+        executionTimeMs, RequestContext.requestId(ctx));
+  }
+
+  private boolean sampled() {
+    return sampleRatio >= 1.0 || (sampleRatio > 0 && ThreadLocalRandom.current().nextDouble() < sampleRatio);
+  }
+}
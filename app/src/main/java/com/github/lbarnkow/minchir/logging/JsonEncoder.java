@@ -0,0 +1,82 @@
+package com.github.lbarnkow.minchir.logging;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+
+/**
+ * Logback encoder writing one JSON object per line: timestamp, level, logger, thread, message, the MDC (e.g.
+ * {@code request_id}, {@code trace_id}) and the stack trace, if any.
+ */
+public class JsonEncoder extends EncoderBase<ILoggingEvent> {
+
+  private static final byte[] EMPTY = new byte[0];
+
+  @Override
+  public byte[] headerBytes() {
+    return EMPTY;
+  }
+
+  @Override
+  public byte[] encode(ILoggingEvent event) {
+    var json = new StringBuilder(256);
+    json.append("{\"timestamp\":\"")
+        .append(DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(event.getTimeStamp()))).append('"');
+    field(json, "level", event.getLevel().toString());
+    field(json, "logger", event.getLoggerName());
+    field(json, "thread", event.getThreadName());
+    field(json, "message", event.getFormattedMessage());
+    event.getMDCPropertyMap().forEach((key, value) -> field(json, key, value));
+    if (event.getThrowableProxy() != null) {
+      field(json, "exception", ThrowableProxyUtil.asString(event.getThrowableProxy()));
+    }
+    json.append("}\n");
+    return json.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public byte[] footerBytes() {
+    return EMPTY;
+  }
+
+  private static void field(StringBuilder json, String name, String value) {
+    json.append(",\"");
+    escape(json, name);
+    json.append("\":\"");
+    escape(json, value != null ? value : "");
+    json.append('"');
+  }
+
+  private static void escape(StringBuilder json, String value) {
+    for (var i = 0; i < value.length(); i++) {
+      var c = value.charAt(i);
+      switch (c) {
+        case '"':
+          json.append("\\\"");
+          break;
+        case '\\':
+          json.append("\\\\");
+          break;
+        case '\n':
+          json.append("\\n");
+          break;
+        case '\r':
+          json.append("\\r");
+          break;
+        case '\t':
+          json.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            json.append(String.format("\\u%04x", (int) c));
+          } else {
+            json.append(c);
+          }
+      }
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.github.lbarnkow.minchir.logging;
+
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.slf4j.MDC;
+
+import com.github.lbarnkow.minchir.tracing.Tracer;
+
+import io.javalin.http.Context;
+
+/**
+ * Correlates log lines of one request: every request gets an id (taken from a sane {@code X-Request-Id} header or
+ * generated), echoed in the response and put into the logging MDC of whichever thread works on the request.
+ */
+public class RequestContext {
+
+  public static final String HEADER = "X-Request-Id";
+  public static final String REQUEST_ID = "request_id";
+  public static final String TRACE_ID = "trace_id";
+
+  private static final String ATTRIBUTE = RequestContext.class.getName();
+  private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+  private static final AutoCloseable UNBOUND = () -> {
+  };
+
+  /**
+   * Before-handler for all requests.
+   */
+  public static void begin(Context ctx) {
+    var requestId = ctx.header(HEADER);
+    if (requestId == null || !VALID_ID.matcher(requestId).matches()) {
+      requestId = UUID.randomUUID().toString();
+    }
+    ctx.attribute(ATTRIBUTE, requestId);
+    ctx.header(HEADER, requestId);
+    MDC.put(REQUEST_ID, requestId);
+  }
+
+  /**
+   * After-handler for all requests; keeps the id from sticking to the pooled thread.
+   */
+  public static void end(Context ctx) {
+    MDC.remove(REQUEST_ID);
+  }
+
+  public static String requestId(Context ctx) {
+    return ctx.attribute(ATTRIBUTE);
+  }
+
+  /**
+   * Puts the request's id (and the current trace id, if traced) into the MDC of the current thread until closed.
+   * Closing restores the previous values, so binding on the thread that ran {@link #begin(Context)} keeps the id for
+   * after-handlers and error logging.
+   */
+  public static AutoCloseable bind(Context ctx) {
+    var requestId = requestId(ctx);
+    if (requestId == null) {
+      return UNBOUND;
+    }
+    var previousRequestId = MDC.get(REQUEST_ID);
+    var previousTraceId = MDC.get(TRACE_ID);
+    MDC.put(REQUEST_ID, requestId);
+    var traceId = Tracer.current().getTraceId();
+    if (traceId != null) {
+      MDC.put(TRACE_ID, traceId);
+    }
+    return () -> {
+      restore(REQUEST_ID, previousRequestId);
+      restore(TRACE_ID, previousTraceId);
+    };
+  }
+
+  private static void restore(String key, String value) {
+    if (value != null) {
+      MDC.put(key, value);
+    } else {
+      MDC.remove(key);
+    }
+  }
+}
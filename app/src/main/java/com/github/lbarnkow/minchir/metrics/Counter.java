@@ -0,0 +1,37 @@
+package com.github.lbarnkow.minchir.metrics;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Counter extends Metric<Counter.Child> {
+
+  Counter(String name, String help, String... labelNames) {
+    super(name, help, "counter", labelNames);
+  }
+
+  public void inc(String... labelValues) {
+    labels(labelValues).inc();
+  }
+
+  @Override
+  protected Child newChild() {
+    return new Child();
+  }
+
+  @Override
+  protected void writeChild(StringBuilder out, List<String> labelValues, Child child) {
+    out.append(getName()).append(labels(labelValues)).append(' ').append(child.get()).append('\n');
+  }
+
+  public static class Child {
+    private final LongAdder count = new LongAdder();
+
+    public void inc() {
+      count.increment();
+    }
+
+    public long get() {
+      return count.sum();
+    }
+  }
+}
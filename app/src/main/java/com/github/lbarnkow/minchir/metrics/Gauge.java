@@ -0,0 +1,35 @@
+package com.github.lbarnkow.minchir.metrics;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A metric whose values are sampled from a supplier at scrape time, e.g. pool sizes or JVM statistics. Monotonic
+ * values (like cpu time) are exposed with type "counter".
+ */
+public class Gauge extends Metric<AtomicReference<DoubleSupplier>> {
+
+  Gauge(String name, String help, String type, String... labelNames) {
+    super(name, help, type, labelNames);
+  }
+
+  /**
+   * Sets (or replaces) the supplier sampled for the given label values.
+   */
+  public void set(DoubleSupplier supplier, String... labelValues) {
+    labels(labelValues).set(supplier);
+  }
+
+  @Override
+  protected AtomicReference<DoubleSupplier> newChild() {
+    return new AtomicReference<>(() -> Double.NaN);
+  }
+
+  @Override
+  protected void writeChild(StringBuilder out, List<String> labelValues, AtomicReference<DoubleSupplier> child) {
+    var value = child.get().getAsDouble();
+    out.append(getName()).append(labels(labelValues)).append(' ').append(Double.isNaN(value) ? "NaN" : format(value))
+        .append('\n');
+  }
+}
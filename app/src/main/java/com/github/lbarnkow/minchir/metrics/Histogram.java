@@ -0,0 +1,121 @@
+package com.github.lbarnkow.minchir.metrics;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lbarnkow.minchir.profiling.StageEvent;
+
+/**
+ * Latency histogram in seconds over fixed, roughly logarithmic buckets. Recording is a short scan over the bucket
+ * bounds plus two striped adds, so it is cheap enough for every request.
+ */
+public class Histogram extends Metric<Histogram.Child> {
+
+  private static final double[] BUCKETS =
+      {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+  private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+  static {
+    for (var i = 0; i < BUCKETS.length; i++) {
+      BUCKET_NANOS[i] = (long) (BUCKETS[i] * 1_000_000_000L);
+    }
+  }
+
+  Histogram(String name, String help, String... labelNames) {
+    super(name, help, "histogram", labelNames);
+  }
+
+  @Override
+  protected Child newChild() {
+    return new Child();
+  }
+
+  @Override
+  protected void writeChild(StringBuilder out, List<String> labelValues, Child child) {
+    var labels = labels(labelValues);
+    long cumulative = 0;
+    for (var i = 0; i <= BUCKETS.length; i++) {
+      cumulative += child.buckets[i].sum();
+      var le = i < BUCKETS.length ? format(BUCKETS[i]) : "+Inf";
+      out.append(getName()).append("_bucket").append(labels(labelValues, "le", le)).append(' ').append(cumulative)
+          .append('\n');
+    }
+    out.append(getName()).append("_sum").append(labels).append(' ').append(format(child.sumNanos.sum() / 1e9))
+        .append('\n');
+    out.append(getName()).append("_count").append(labels).append(' ').append(cumulative).append('\n');
+  }
+
+  public static class Child {
+    private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    private Child() {
+      for (var i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    public void observeNanos(long nanos) {
+      var bucket = 0;
+      while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+        bucket++;
+      }
+      buckets[bucket].increment();
+      sumNanos.add(nanos);
+    }
+
+    public Timer startTimer() {
+      return startTimer(null);
+    }
+
+    /**
+     * Like {@link #startTimer()}, but also records the duration as a stage of the current request's
+     * {@link RequestTimings} and, while a flight recording is running, as a {@link StageEvent}.
+     */
+    public Timer startTimer(String stage) {
+      return new Timer(this, stage, System.nanoTime());
+    }
+  }
+
+  /**
+   * Records the time until {@link #close()}, meant for try-with-resources.
+   */
+  public static class Timer implements AutoCloseable {
+    public static final String OK = "ok";
+    public static final String ERROR = "error";
+
+    private final Child child;
+    private final String stage;
+    private final long start;
+    private final StageEvent event;
+    private String outcome = OK;
+
+    private Timer(Child child, String stage, long start) {
+      this.child = child;
+      this.stage = stage;
+      this.start = start;
+      this.event = stage != null ? StageEvent.start(stage) : null;
+    }
+
+    /**
+     * Sets the outcome reported with the stage event (default {@value #OK}). Code that may fail with an exception
+     * sets a pessimistic outcome up front and overwrites it once the stage succeeded.
+     */
+    public Timer outcome(String outcome) {
+      this.outcome = outcome;
+      return this;
+    }
+
+    @Override
+    public void close() {
+      var nanos = System.nanoTime() - start;
+      child.observeNanos(nanos);
+      if (stage != null) {
+        RequestTimings.record(stage, nanos);
+      }
+      if (event != null) {
+        event.finish(outcome);
+      }
+    }
+  }
+}
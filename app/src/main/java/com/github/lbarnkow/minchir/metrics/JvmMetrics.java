@@ -0,0 +1,46 @@
+package com.github.lbarnkow.minchir.metrics;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Standard process and JVM metrics, sampled from the platform MXBeans at scrape time.
+ */
+public class JvmMetrics {
+
+  public static void register(MetricsRegistry registry) {
+    var runtime = ManagementFactory.getRuntimeMXBean();
+    registry.gauge("process_start_time_seconds", "Start time of the process since unix epoch in seconds.")
+        .set(() -> runtime.getStartTime() / 1000.0);
+
+    var os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.OperatingSystemMXBean) {
+      var sunOs = (com.sun.management.OperatingSystemMXBean) os;
+      registry.counterFunction("process_cpu_seconds_total", "Total user and system CPU time spent in seconds.")
+          .set(() -> sunOs.getProcessCpuTime() / 1e9);
+    }
+
+    var memory = ManagementFactory.getMemoryMXBean();
+    var used = registry.gauge("jvm_memory_bytes_used", "Used bytes of a given JVM memory area.", "area");
+    used.set(() -> memory.getHeapMemoryUsage().getUsed(), "heap");
+    used.set(() -> memory.getNonHeapMemoryUsage().getUsed(), "nonheap");
+    var committed = registry.gauge("jvm_memory_bytes_committed", "Committed bytes of a given JVM memory area.", "area");
+    committed.set(() -> memory.getHeapMemoryUsage().getCommitted(), "heap");
+    committed.set(() -> memory.getNonHeapMemoryUsage().getCommitted(), "nonheap");
+    registry.gauge("jvm_memory_bytes_max", "Max bytes of a given JVM memory area.", "area")
+        .set(() -> memory.getHeapMemoryUsage().getMax(), "heap");
+
+    var threads = ManagementFactory.getThreadMXBean();
+    registry.gauge("jvm_threads_current", "Current thread count of the JVM.").set(threads::getThreadCount);
+    registry.gauge("jvm_threads_daemon", "Daemon thread count of the JVM.").set(threads::getDaemonThreadCount);
+    registry.gauge("jvm_threads_peak", "Peak thread count of the JVM.").set(threads::getPeakThreadCount);
+
+    var gcCount =
+        registry.counterFunction("jvm_gc_collection_count_total", "Number of collections of a given GC.", "gc");
+    var gcTime = registry.counterFunction("jvm_gc_collection_seconds_total", "Time spent in a given GC in seconds.",
+        "gc");
+    for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      gcCount.set(gc::getCollectionCount, gc.getName());
+      gcTime.set(() -> gc.getCollectionTime() / 1000.0, gc.getName());
+    }
+  }
+}
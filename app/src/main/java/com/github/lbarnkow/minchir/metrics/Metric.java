@@ -0,0 +1,112 @@
+package com.github.lbarnkow.minchir.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A metric family: a name, help text and a child per combination of label values.
+ */
+public abstract class Metric<C> {
+
+  private final String name;
+  private final String help;
+  private final String type;
+  private final List<String> labelNames;
+  private final Map<List<String>, C> children = new ConcurrentSkipListMap<>(Metric::compare);
+
+  protected Metric(String name, String help, String type, String... labelNames) {
+    this.name = name;
+    this.help = help;
+    this.type = type;
+    this.labelNames = List.of(labelNames);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * Resolving a child costs a map lookup; hot paths may keep the child around.
+   */
+  public C labels(String... labelValues) {
+    if (labelValues.length != labelNames.size()) {
+      throw new IllegalArgumentException(String.format("Metric '%s' needs %d label values (%s), but got %d!", name,
+          labelNames.size(), labelNames, labelValues.length));
+    }
+    return children.computeIfAbsent(List.of(labelValues), values -> newChild());
+  }
+
+  protected abstract C newChild();
+
+  protected abstract void writeChild(StringBuilder out, List<String> labelValues, C child);
+
+  void write(StringBuilder out) {
+    if (children.isEmpty()) {
+      return;
+    }
+    out.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    children.forEach((values, child) -> writeChild(out, values, child));
+  }
+
+  protected String labels(List<String> values) {
+    return labels(values, null, null);
+  }
+
+  protected String labels(List<String> values, String extraName, String extraValue) {
+    if (values.isEmpty() && extraName == null) {
+      return "";
+    }
+    var labels = new StringBuilder("{");
+    for (var i = 0; i < values.size(); i++) {
+      appendLabel(labels, labelNames.get(i), values.get(i));
+    }
+    if (extraName != null) {
+      appendLabel(labels, extraName, extraValue);
+    }
+    labels.setCharAt(labels.length() - 1, '}');
+    return labels.toString();
+  }
+
+  protected static String format(double value) {
+    if (value == (long) value) {
+      return Long.toString((long) value);
+    }
+    return Double.isInfinite(value) ? (value > 0 ? "+Inf" : "-Inf") : Double.toString(value);
+  }
+
+  private static void appendLabel(StringBuilder out, String name, String value) {
+    out.append(name).append("=\"");
+    for (var c : value.toCharArray()) {
+      switch (c) {
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        default:
+          out.append(c);
+      }
+    }
+    out.append("\",");
+  }
+
+  private static int compare(List<String> a, List<String> b) {
+    for (var i = 0; i < Math.min(a.size(), b.size()); i++) {
+      var result = a.get(i).compareTo(b.get(i));
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(a.size(), b.size());
+  }
+}
@@ -0,0 +1,50 @@
+package com.github.lbarnkow.minchir.metrics;
+
+/**
+ * The application's metrics. They live in one static registry (like the prometheus client libraries do), so every
+ * component can record without having the registry passed around.
+ */
+public class Metrics {
+
+  public static final String SUCCESS = "success";
+  public static final String BAD_CREDENTIALS = "bad_credentials";
+  public static final String SKIP = "skip";
+  public static final String CANCEL = "cancel";
+  public static final String ERROR = "error";
+
+  public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+  public static final Histogram HANDLER_DURATION = REGISTRY.histogram("minchir_handler_duration_seconds",
+      "Time spent handling login, consent and logout requests.", "handler", "method");
+
+  public static final Counter FLOW_OUTCOMES = REGISTRY.counter("minchir_flow_outcomes_total",
+      "Outcomes of login, consent and logout requests.", "flow", "outcome");
+
+  public static final Histogram HYDRA_DURATION = REGISTRY.histogram("minchir_hydra_request_duration_seconds",
+      "Latency of calls to the ory hydra admin api.", "flow", "action");
+
+  public static final Counter HYDRA_FAILURES = REGISTRY.counter("minchir_hydra_request_failures_total",
+      "Failed calls to the ory hydra admin api.", "flow", "action");
+
+  public static final Histogram LDAP_DURATION =
+      REGISTRY.histogram("minchir_ldap_operation_duration_seconds", "Latency of LDAP operations.", "operation");
+
+  public static final Histogram CSRF_DURATION =
+      REGISTRY.histogram("minchir_csrf_duration_seconds", "Time spent creating or verifying CSRF tokens.", "operation");
+
+  public static final Histogram RENDER_DURATION =
+      REGISTRY.histogram("minchir_template_render_duration_seconds", "Time spent rendering templates.", "template");
+
+  public static final Gauge LDAP_POOL = REGISTRY.gauge("minchir_ldap_pool_connections",
+      "Connections in the LDAP connection pool by state.", "state");
+
+  public static final Gauge LDAP_POOL_CHECKOUTS = REGISTRY.counterFunction("minchir_ldap_pool_checkouts_total",
+      "Connection checkouts from the LDAP connection pool by result.", "result");
+
+  public static final Gauge HEALTH_CHECK_UP =
+      REGISTRY.gauge("minchir_health_check_up", "Result of the last background health check (1 = up).", "check");
+
+  static {
+    JvmMetrics.register(REGISTRY);
+  }
+}
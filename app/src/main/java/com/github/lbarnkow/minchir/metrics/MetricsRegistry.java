@@ -0,0 +1,49 @@
+package com.github.lbarnkow.minchir.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds metric families by name and renders them in the Prometheus text exposition format.
+ */
+public class MetricsRegistry {
+
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final Map<String, Metric<?>> metrics = new ConcurrentSkipListMap<>();
+
+  public Counter counter(String name, String help, String... labelNames) {
+    return register(name, Counter.class, () -> new Counter(name, help, labelNames));
+  }
+
+  public Histogram histogram(String name, String help, String... labelNames) {
+    return register(name, Histogram.class, () -> new Histogram(name, help, labelNames));
+  }
+
+  public Gauge gauge(String name, String help, String... labelNames) {
+    return register(name, Gauge.class, () -> new Gauge(name, help, "gauge", labelNames));
+  }
+
+  /**
+   * A sampled metric for values that only ever grow, like cpu time or gc counts.
+   */
+  public Gauge counterFunction(String name, String help, String... labelNames) {
+    return register(name, Gauge.class, () -> new Gauge(name, help, "counter", labelNames));
+  }
+
+  public String scrape() {
+    var out = new StringBuilder(16 * 1024);
+    metrics.values().forEach(metric -> metric.write(out));
+    return out.toString();
+  }
+
+  private <M extends Metric<?>> M register(String name, Class<M> type, Supplier<M> factory) {
+    var metric = metrics.computeIfAbsent(name, n -> factory.get());
+    if (!type.isInstance(metric)) {
+      throw new IllegalArgumentException(String.format("Metric '%s' is already registered as a %s!", name,
+          metric.getType()));
+    }
+    return type.cast(metric);
+  }
+}
@@ -0,0 +1,128 @@
+package com.github.lbarnkow.minchir.metrics;
+
+import io.javalin.http.Context;
+
+/**
+ * Per-request breakdown of stage durations (hydra calls, ldap operations, csrf, rendering) for the
+ * {@code Server-Timing} header and the timing log line.
+ * <p>
+ * Lives in a context attribute and is bound to the handling thread while code deeper down (which has no access to
+ * the context) records stages. Stages go into fixed arrays, so recording doesn't allocate.
+ */
+public class RequestTimings implements AutoCloseable {
+
+  public static final String ATTRIBUTE = RequestTimings.class.getName();
+
+  private static final int MAX_STAGES = 16;
+  private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+  private static final AutoCloseable UNBOUND = () -> {
+  };
+
+  private final long start = System.nanoTime();
+  private final String flow;
+  private final String[] stages = new String[MAX_STAGES];
+  private final long[] durations = new long[MAX_STAGES];
+  private int count;
+  private RequestTimings previous;
+
+  public RequestTimings() {
+    this(null);
+  }
+
+  public RequestTimings(String flow) {
+    this.flow = flow;
+  }
+
+  public static void begin(Context ctx) {
+    begin(ctx, null);
+  }
+
+  /**
+   * @param flow the flow (login, consent, logout) the request belongs to, see {@link #currentFlow()}
+   */
+  public static void begin(Context ctx, String flow) {
+    ctx.attribute(ATTRIBUTE, new RequestTimings(flow));
+  }
+
+  public static RequestTimings of(Context ctx) {
+    return ctx.attribute(ATTRIBUTE);
+  }
+
+  /**
+   * Makes the context's timings (if any) the target of {@link #record(String, long)} until the result is closed.
+   */
+  public static AutoCloseable bind(Context ctx) {
+    var timings = of(ctx);
+    return timings != null ? timings.bindToThread() : UNBOUND;
+  }
+
+  public RequestTimings bindToThread() {
+    previous = CURRENT.get();
+    CURRENT.set(this);
+    return this;
+  }
+
+  @Override
+  public void close() {
+    if (previous != null) {
+      CURRENT.set(previous);
+      previous = null;
+    } else {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Records a stage for the request bound to the current thread; a no-op if there is none.
+   */
+  public static void record(String stage, long nanos) {
+    var timings = CURRENT.get();
+    if (timings != null) {
+      timings.add(stage, nanos);
+    }
+  }
+
+  /**
+   * @return the flow of the request bound to the current thread, or {@code null} if there is none
+   */
+  public static String currentFlow() {
+    var timings = CURRENT.get();
+    return timings != null ? timings.flow : null;
+  }
+
+  public synchronized void add(String stage, long nanos) {
+    if (count < MAX_STAGES) {
+      stages[count] = stage;
+      durations[count] = nanos;
+      count++;
+    }
+  }
+
+  /**
+   * @return e.g. {@code fetchLoginChallenge;dur=12.3, ldapBind;dur=4.0, total;dur=17.1}
+   */
+  public synchronized String toServerTiming() {
+    var out = new StringBuilder(32 * (count + 1));
+    for (var i = 0; i < count; i++) {
+      appendMillis(out.append(stages[i]).append(";dur="), durations[i]).append(", ");
+    }
+    return appendMillis(out.append("total;dur="), System.nanoTime() - start).toString();
+  }
+
+  /**
+   * @return e.g. {@code total_ms=17.1 fetchLoginChallenge_ms=12.3 ldapBind_ms=4.0}
+   */
+  public synchronized String toLogFields() {
+    var out = new StringBuilder(32 * (count + 1));
+    appendMillis(out.append("total_ms="), System.nanoTime() - start);
+    for (var i = 0; i < count; i++) {
+      appendMillis(out.append(' ').append(stages[i]).append("_ms="), durations[i]);
+    }
+    return out.toString();
+  }
+
+  private static StringBuilder appendMillis(StringBuilder out, long nanos) {
+    var tenths = nanos / 100_000;
+    return out.append(tenths / 10).append('.').append(tenths % 10);
+  }
+}
@@ -0,0 +1,157 @@
+package com.github.lbarnkow.minchir.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.google.gson.Gson;
+
+import io.javalin.Javalin;
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import io.javalin.http.HttpCode;
+import io.javalin.http.NotFoundResponse;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Starts, stops and downloads one flight recording at a time through admin endpoints, so a running instance can be
+ * profiled under real load without a restart or attaching tools. Recordings are bounded in duration and size. Events
+ * capturing the environment, system properties and command lines (ours and those of other processes on the host) are
+ * always disabled; they would reveal secrets like the LDAP bind password to anyone who downloads a recording.
+ */
+public class FlightRecordings {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FlightRecordings.class);
+
+  private static final Gson GSON = new Gson();
+  private static final String RECORDING_NAME = "minchir";
+  private static final List<String> SENSITIVE_EVENTS = List.of("jdk.InitialEnvironmentVariable",
+      "jdk.InitialSystemProperty", "jdk.JVMInformation", "jdk.SystemProcess");
+
+  private final Config.Profiling config;
+  private final Configuration settings;
+  private final Map<String, String> recordingSettings;
+
+  private Recording recording;
+
+  public FlightRecordings(Config.Profiling config) {
+    this.config = config;
+    try {
+      settings = Configuration.getConfiguration(config.getSettings());
+    } catch (Exception e) {
+      throw new RuntimeException(String.format("Unknown flight recorder settings '%s'!", config.getSettings()), e);
+    }
+
+    recordingSettings = new HashMap<>(settings.getSettings());
+    for (var event : SENSITIVE_EVENTS) {
+      recordingSettings.put(event + "#enabled", "false");
+    }
+  }
+
+  /**
+   * Closes a leftover recording when the given app stops.
+   */
+  public void attachTo(Javalin main) {
+    main.events(event -> event.serverStopping(this::close));
+  }
+
+  public synchronized void handleStatus(Context ctx) {
+    respond(ctx);
+  }
+
+  /**
+   * Starts a new recording, replacing a stopped one. The optional {@code durationSeconds} query parameter is capped
+   * at the configured maximum.
+   */
+  public synchronized void handleStart(Context ctx) {
+    if (isRunning()) {
+      ctx.status(HttpCode.CONFLICT);
+      respond(ctx);
+      return;
+    }
+
+    var maxDuration = config.getMaxDurationSeconds();
+    var duration = ctx.queryParamAsClass("durationSeconds", Long.class) //
+        .check(seconds -> seconds > 0, "must be positive") //
+        .getOrDefault(maxDuration);
+
+    close();
+    recording = new Recording(recordingSettings);
+    recording.setName(RECORDING_NAME);
+    recording.setToDisk(true);
+    recording.setDuration(Duration.ofSeconds(Math.min(duration, maxDuration)));
+    recording.setMaxSize(config.getMaxSizeBytes());
+    recording.start();
+    LOG.info("Started flight recording with settings '{}' for {}.", settings.getName(), recording.getDuration());
+
+    respond(ctx);
+  }
+
+  public synchronized void handleStop(Context ctx) {
+    if (!isRunning()) {
+      ctx.status(HttpCode.CONFLICT);
+      respond(ctx);
+      return;
+    }
+
+    recording.stop();
+    LOG.info("Stopped flight recording.");
+    respond(ctx);
+  }
+
+  /**
+   * Sends the data recorded so far; works for running and stopped recordings.
+   */
+  public synchronized void handleDownload(Context ctx) throws IOException {
+    if (recording == null) {
+      throw new NotFoundResponse("No flight recording available!");
+    }
+
+    var file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+    try {
+      recording.dump(file);
+    } catch (IOException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+
+    ctx.contentType(ContentType.OCTET_STREAM);
+    ctx.header("Content-Disposition", "attachment; filename=\"" + RECORDING_NAME + ".jfr\"");
+    ctx.result(Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE));
+  }
+
+  private boolean isRunning() {
+    return recording != null && recording.getState() == RecordingState.RUNNING;
+  }
+
+  private synchronized void close() {
+    if (recording != null) {
+      recording.close();
+      recording = null;
+    }
+  }
+
+  private void respond(Context ctx) {
+    var body = new LinkedHashMap<String, Object>();
+    body.put("state", recording != null ? recording.getState().name() : "NONE");
+    body.put("settings", settings.getName());
+    if (recording != null) {
+      body.put("startTime", String.valueOf(recording.getStartTime()));
+      body.put("durationSeconds", recording.getDuration().toSeconds());
+      body.put("sizeBytes", recording.getSize());
+    }
+    ctx.contentType(ContentType.JSON);
+    ctx.result(GSON.toJson(body));
+  }
+}
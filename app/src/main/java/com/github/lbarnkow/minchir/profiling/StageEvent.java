@@ -0,0 +1,56 @@
+package com.github.lbarnkow.minchir.profiling;
+
+import com.github.lbarnkow.minchir.metrics.RequestTimings;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one stage of a flow (hydra call, ldap search/bind, csrf check, rendering). Stages are
+ * timed through {@link com.github.lbarnkow.minchir.metrics.Histogram.Timer}, which emits these events while a
+ * recording is running; otherwise no event object is kept around.
+ */
+@Name(StageEvent.NAME)
+@Label("Minchir Stage")
+@Category("Minchir")
+@Description("A timed stage of a login, consent or logout flow")
+@StackTrace(false)
+public class StageEvent extends Event {
+
+  public static final String NAME = "minchir.Stage";
+
+  @Label("Flow")
+  private String flow;
+
+  @Label("Stage")
+  private String stage;
+
+  @Label("Outcome")
+  private String outcome;
+
+  /**
+   * @return a started event for the given stage, or {@code null} if no recording is interested in it
+   */
+  public static StageEvent start(String stage) {
+    var event = new StageEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.flow = RequestTimings.currentFlow();
+    event.stage = stage;
+    event.begin();
+    return event;
+  }
+
+  public void finish(String outcome) {
+    end();
+    if (shouldCommit()) {
+      this.outcome = outcome;
+      commit();
+    }
+  }
+}
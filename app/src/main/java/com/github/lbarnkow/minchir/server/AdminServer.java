@@ -0,0 +1,81 @@
+package com.github.lbarnkow.minchir.server;
+
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+
+import io.javalin.Javalin;
+import io.javalin.http.Handler;
+
+/**
+ * A second, small server for operational endpoints (metrics, health, diagnostics). It listens on its own port and has
+ * its own thread pool, so scrapes and probes neither face users nor compete with login traffic.
+ */
+public class AdminServer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AdminServer.class);
+
+  private static final String ATTRIBUTE = AdminServer.class.getName();
+
+  private final Javalin app;
+
+  public AdminServer(Config.Admin config) {
+    app = Javalin.create(c -> {
+      c.showJavalinBanner = false;
+      c.server(() -> createServer(config));
+    });
+  }
+
+  public AdminServer get(String path, Handler handler) {
+    app.get(path, handler);
+    return this;
+  }
+
+  public AdminServer post(String path, Handler handler) {
+    app.post(path, handler);
+    return this;
+  }
+
+  /**
+   * Starts and stops the admin server together with the given (public) app.
+   */
+  public void attachTo(Javalin main) {
+    main.attribute(ATTRIBUTE, this);
+    main.events(event -> {
+      event.serverStarted(() -> {
+        app.start();
+        LOG.info("Admin endpoints listening on port {}.", port());
+      });
+      event.serverStopping(app::stop);
+    });
+  }
+
+  /**
+   * @return the admin server attached to the given app, or {@code null} if there is none
+   */
+  public static AdminServer of(Javalin main) {
+    return main.attribute(ATTRIBUTE);
+  }
+
+  public int port() {
+    return ((ServerConnector) app.jettyServer().server().getConnectors()[0]).getLocalPort();
+  }
+
+  private static Server createServer(Config.Admin config) {
+    var threadPool = new QueuedThreadPool(config.getMaxThreads(), 1);
+    threadPool.setName("AdminThreadPool");
+    threadPool.setReservedThreads(0);
+
+    var server = new Server(threadPool);
+    var connector = new ServerConnector(server, 1, 1, new HttpConnectionFactory());
+    connector.setHost(config.getHost());
+    connector.setPort(config.getPort());
+    server.addConnector(connector);
+    return server;
+  }
+}
@@ -0,0 +1,56 @@
+package com.github.lbarnkow.minchir.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+
+import io.javalin.core.JavalinConfig;
+import io.javalin.core.compression.Brotli;
+import io.javalin.core.compression.Gzip;
+import io.javalin.http.OutputStreamWrapper;
+
+/**
+ * Configures Javalin's on-the-fly compression of dynamic responses (i.e. rendered pages).
+ */
+public class Compression {
+
+  public static final String JVM_BROTLI_CLASS = "com.nixxcode.jvmbrotli.common.BrotliLoader";
+
+  private static final Logger LOG = LoggerFactory.getLogger(Compression.class);
+
+  public static void configure(JavalinConfig javalinConfig, Config.Compression config) {
+    if (config == null) {
+      return;
+    }
+
+    Brotli brotli = null;
+    if (Boolean.TRUE.equals(config.getBrotli())) {
+      if (!isJvmBrotliAvailable()) {
+        throw new RuntimeException(String.format(
+            "Brotli compression is enabled, but the jvm-brotli library ('%s') isn't on the classpath!",
+            JVM_BROTLI_CLASS));
+      }
+      brotli = new Brotli(config.getBrotliLevel());
+    }
+
+    var gzip = Boolean.TRUE.equals(config.getGzip()) ? new Gzip(config.getGzipLevel()) : null;
+    javalinConfig.compressionStrategy(brotli, gzip);
+
+    // javalin keeps this threshold in a static field, so it's shared by all instances in the JVM
+    OutputStreamWrapper.Companion.setMinSizeForCompression(config.getMinSizeBytes());
+
+    LOG.info("Compressing responses of at least {} bytes with brotli: {}, gzip: {}.", config.getMinSizeBytes(), //
+        brotli != null ? "level " + config.getBrotliLevel() : "off", //
+        gzip != null ? "level " + config.getGzipLevel() : "off");
+  }
+
+  private static boolean isJvmBrotliAvailable() {
+    try {
+      Class.forName(JVM_BROTLI_CLASS);
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+}
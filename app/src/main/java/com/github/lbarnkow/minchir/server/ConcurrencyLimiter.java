@@ -0,0 +1,111 @@
+package com.github.lbarnkow.minchir.server;
+
+import java.util.function.LongSupplier;
+
+import com.github.lbarnkow.minchir.config.Config;
+
+/**
+ * Adaptive limit on concurrently running handlers, adjusted from observed latency (a simplified gradient limiter):
+ * while latency stays within {@code tolerance} times its long-term average the limit grows, beyond that it shrinks.
+ * <p>
+ * Requests starting a new flow may only use a share of the limit, the remainder is kept for requests completing a
+ * flow that is already in progress, so those finish quickly under overload. Requests that only turn out to start a
+ * new flow while being handled are re-classified through {@link Permit#startsNewFlow()}.
+ */
+public class ConcurrencyLimiter {
+
+  private static final double LONG_WINDOW = 600;
+  private static final double SMOOTHING = 0.2;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final double newFlowShare;
+  private final LongSupplier nanoClock;
+
+  private double limit;
+  private double longLatency;
+  private int inFlight;
+
+  public ConcurrencyLimiter(Config.ConcurrencyLimit config) {
+    this(config, System::nanoTime);
+  }
+
+  public ConcurrencyLimiter(Config.ConcurrencyLimit config, LongSupplier nanoClock) {
+    this.minLimit = config.getMinLimit();
+    this.maxLimit = config.getMaxLimit();
+    this.tolerance = config.getTolerance();
+    this.newFlowShare = config.getNewFlowShare();
+    this.limit = config.getInitialLimit();
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * @return a permit to be released when the request is done, or {@code null} if the request must be rejected
+   */
+  public synchronized Permit tryAcquire(boolean continuesFlow) {
+    var allowed = continuesFlow ? (int) limit : newFlowLimit();
+    if (inFlight >= allowed) {
+      return null;
+    }
+    inFlight++;
+    return new Permit(nanoClock.getAsLong());
+  }
+
+  private synchronized boolean admitNewFlow() {
+    // the asking request is already counted
+    return inFlight <= newFlowLimit();
+  }
+
+  private int newFlowLimit() {
+    return Math.max(1, (int) (limit * newFlowShare + 1e-6));
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  private synchronized void release(long latency) {
+    var wasInFlight = inFlight--;
+
+    longLatency = longLatency == 0 ? latency : longLatency + (latency - longLatency) / LONG_WINDOW;
+    if (longLatency > 2 * latency) {
+      // latency dropped a lot (e.g. the ldap recovered), let the baseline follow faster
+      longLatency *= 0.95;
+    }
+
+    var gradient = Math.max(0.5, Math.min(1.0, tolerance * longLatency / latency));
+    var newLimit = limit * gradient + Math.sqrt(limit);
+    if (newLimit > limit && wasInFlight < limit / 2) {
+      // don't grow a limit that isn't even used
+      return;
+    }
+    limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+  }
+
+  public class Permit {
+    private final long start;
+
+    private Permit(long start) {
+      this.start = start;
+    }
+
+    /**
+     * Re-classifies a request admitted as continuing a flow once it turns out to start a new one (e.g. a GET for
+     * which hydra doesn't skip the form).
+     *
+     * @return {@code false} if new flows already use up their share of the limit; the request should be rejected
+     */
+    public boolean startsNewFlow() {
+      return admitNewFlow();
+    }
+
+    public void release() {
+      ConcurrencyLimiter.this.release(Math.max(1, nanoClock.getAsLong() - start));
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.github.lbarnkow.minchir.server;
+
+import java.util.function.IntSupplier;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import io.javalin.http.ServiceUnavailableResponse;
+
+/**
+ * Rejects new requests with a 503 (rendered by the cached error pages) and a {@code Retry-After} header while too many
+ * jobs are waiting for a jetty thread, so latency stays bounded under overload instead of growing with the queue.
+ */
+public class LoadShedder implements Handler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LoadShedder.class);
+
+  private final IntSupplier queueSize;
+  private final int shedQueueSize;
+  private final String retryAfter;
+
+  public LoadShedder(IntSupplier queueSize, Config.ThreadPool config) {
+    this.queueSize = queueSize;
+    this.shedQueueSize = config.getShedQueueSize();
+    this.retryAfter = String.valueOf(config.getRetryAfterSeconds());
+  }
+
+  public static void configure(Javalin app, Config.ThreadPool config) {
+    if (config.getShedQueueSize() <= 0) {
+      return;
+    }
+    var threadPool = (QueuedThreadPool) app.jettyServer().server().getThreadPool();
+    app.before(new LoadShedder(threadPool::getQueueSize, config));
+  }
+
+  @Override
+  public void handle(Context ctx) {
+    var queued = queueSize.getAsInt();
+    if (queued >= shedQueueSize) {
+      LOG.warn("Shedding {} {}, {} jobs are waiting for a thread.", ctx.method(), ctx.path(), queued);
+      ctx.header(HttpHeader.RETRY_AFTER.asString(), retryAfter);
+      throw new ServiceUnavailableResponse();
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.github.lbarnkow.minchir.server;
+
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http2.HTTP2Cipher;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+
+import io.javalin.Javalin;
+
+/**
+ * Builds the embedded Jetty server: a plain HTTP/1.1 connector (optionally accepting h2c) and, if configured, a TLS
+ * connector negotiating HTTP/2 or HTTP/1.1 via ALPN.
+ */
+public class ServerFactory {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ServerFactory.class);
+
+  public static Server create(Config.Server config) {
+    var pool = config.getThreadPool();
+    var queue = new BlockingArrayQueue<Runnable>(Math.min(pool.getQueueCapacity(), 128), 128, pool.getQueueCapacity());
+    var threadPool =
+        new QueuedThreadPool(pool.getMaxThreads(), pool.getMinThreads(), pool.getIdleTimeoutMilliseconds(), queue);
+    threadPool.setName("JettyServerThreadPool");
+    return new Server(threadPool);
+  }
+
+  /**
+   * Adds the connectors right before javalin starts the server, so the plain port honors {@code app.start(port)}.
+   */
+  public static void addConnectors(Javalin app, Config.Server config) {
+    app.events(event -> event.serverStarting(() -> {
+      var server = app.jettyServer().server();
+      server.addConnector(plainConnector(server, config, app.jettyServer().getServerPort()));
+      if (config.getTls() != null && config.getTls().getPort() != null) {
+        server.addConnector(tlsConnector(server, config));
+      }
+    }));
+  }
+
+  private static ServerConnector plainConnector(Server server, Config.Server config, int port) {
+    var http = new HttpConfiguration();
+    ConnectionFactory[] factories = Boolean.TRUE.equals(config.getH2c()) //
+        ? new ConnectionFactory[] {new HttpConnectionFactory(http), new HTTP2CServerConnectionFactory(http)} //
+        : new ConnectionFactory[] {new HttpConnectionFactory(http)};
+
+    var connector = connector(server, config.getConnector(), factories);
+    connector.setPort(port);
+    return connector;
+  }
+
+  private static ServerConnector connector(Server server, Config.Connector config, ConnectionFactory... factories) {
+    var connector = new ServerConnector(server, config.getAcceptors(), config.getSelectors(), factories);
+    connector.setAcceptQueueSize(config.getAcceptQueueSize());
+    connector.setIdleTimeout(config.getIdleTimeoutMilliseconds());
+    return connector;
+  }
+
+  private static ServerConnector tlsConnector(Server server, Config.Server serverConfig) {
+    var config = serverConfig.getTls();
+    var https = new HttpConfiguration();
+    https.setSecureScheme("https");
+    https.setSecurePort(config.getPort());
+    https.addCustomizer(new SecureRequestCustomizer());
+
+    var sslContextFactory = new SslContextFactory.Server();
+    sslContextFactory.setKeyStorePath(config.getKeyStorePath());
+    sslContextFactory.setKeyStorePassword(config.getKeyStorePassword());
+    sslContextFactory.setKeyStoreType(config.getKeyStoreType());
+
+    ServerConnector connector;
+    if (Boolean.TRUE.equals(config.getHttp2())) {
+      sslContextFactory.setCipherComparator(HTTP2Cipher.COMPARATOR);
+      var alpn = new ALPNServerConnectionFactory();
+      alpn.setDefaultProtocol(HttpVersion.HTTP_1_1.asString());
+
+      connector = connector(server, serverConfig.getConnector(), //
+          new SslConnectionFactory(sslContextFactory, alpn.getProtocol()), //
+          alpn, //
+          new HTTP2ServerConnectionFactory(https), //
+          new HttpConnectionFactory(https));
+    } else {
+      connector = connector(server, serverConfig.getConnector(), //
+          new SslConnectionFactory(sslContextFactory, HttpVersion.HTTP_1_1.asString()), //
+          new HttpConnectionFactory(https));
+    }
+    connector.setPort(config.getPort());
+
+    LOG.info("Serving TLS on port {} ({}).", config.getPort(),
+        Boolean.TRUE.equals(config.getHttp2()) ? "h2, http/1.1" : "http/1.1");
+    return connector;
+  }
+}
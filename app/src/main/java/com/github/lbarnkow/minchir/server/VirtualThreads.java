@@ -0,0 +1,45 @@
+package com.github.lbarnkow.minchir.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to a shared virtual-thread-per-task executor. Looked up reflectively, so the app still builds and runs on JDKs
+ * without virtual threads as long as they are not enabled.
+ */
+public class VirtualThreads {
+
+  private static volatile ExecutorService executor;
+
+  public static boolean isSupported() {
+    try {
+      Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  public static ExecutorService executor() {
+    if (executor == null) {
+      synchronized (VirtualThreads.class) {
+        if (executor == null) {
+          executor = create();
+        }
+      }
+    }
+    return executor;
+  }
+
+  private static ExecutorService create() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException e) {
+      throw new RuntimeException(String.format(
+          "Virtual threads were enabled in the config, but are not available on this JDK (%s)! Needs Java 21 or newer.",
+          System.getProperty("java.version")));
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException("Failed to create virtual thread executor!", e);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.github.lbarnkow.minchir.templates;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.templates.compiled.CompiledTemplate;
+import com.github.lbarnkow.minchir.templates.compiled.TemplateCompiler;
+
+public class CompiledTemplateRenderer implements TemplateRenderer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CompiledTemplateRenderer.class);
+
+  private final Map<String, CompiledTemplate> templates = new HashMap<>();
+
+  public CompiledTemplateRenderer(Config config) throws IOException {
+    var templatesPath = config.getServer().getAssetsPath("templates");
+
+    for (var entry : TemplateRenderer.findTemplates(templatesPath).entrySet()) {
+      var source = Files.readString(entry.getValue().toPath(), StandardCharsets.UTF_8);
+      templates.put(entry.getKey(), TemplateCompiler.compile(entry.getValue().getName(), source));
+      LOG.debug("Compiled template '{}'.", entry.getValue().getName());
+    }
+
+    LOG.info("Compiled {} templates from '{}'.", templates.size(), templatesPath);
+  }
+
+  @Override
+  public boolean contains(String name) {
+    return templates.containsKey(name);
+  }
+
+  @Override
+  public void render(String name, Map<String, Object> model, Writer writer) throws IOException {
+    var template = templates.get(name);
+    if (template == null) {
+      throw new RuntimeException(String.format("Unknown template '%s'!", name));
+    }
+    template.render(model, writer);
+  }
+}
@@ -0,0 +1,102 @@
+package com.github.lbarnkow.minchir.templates;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Translations;
+import com.github.lbarnkow.minchir.util.ContextUtil;
+import com.github.lbarnkow.minchir.util.TemplateModel;
+
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+
+/**
+ * Error pages don't depend on the request, so they are rendered once per language (and again whenever the
+ * translations change) and served as (pre-compressed) bytes.
+ */
+public class ErrorPages {
+
+  public static final int[] STATUS_CODES = {400, 404, 500, 503};
+
+  private static final Logger LOG = LoggerFactory.getLogger(ErrorPages.class);
+
+  private final PageRenderer pages;
+  private volatile Rendered rendered;
+
+  public ErrorPages(PageRenderer pages, Translations translations) throws IOException {
+    this.pages = pages;
+    update(translations);
+  }
+
+  public void update(Translations translations) throws IOException {
+    var byLanguage = new HashMap<String, Map<Integer, Page>>();
+
+    for (var language : translations.getLanguages()) {
+      var languagePages = new HashMap<Integer, Page>();
+      for (var code : STATUS_CODES) {
+        var model = new TemplateModel(null, translations.get(language), translations.getMessages(language),
+            pages.getGlobals());
+        var html = pages.getTemplates().render(String.valueOf(code), model);
+        languagePages.put(code, new Page(html.getBytes(StandardCharsets.UTF_8)));
+      }
+      byLanguage.put(language, Map.copyOf(languagePages));
+    }
+
+    rendered = new Rendered(translations, Map.copyOf(byLanguage));
+    LOG.debug("Rendered {} error pages for languages {}.", STATUS_CODES.length, byLanguage.keySet());
+  }
+
+  public void handle(int code, Context ctx) {
+    var current = rendered;
+    var language = ContextUtil.getLanguage(ctx, current.translations);
+    var page = current.pages.get(language).get(code);
+
+    ctx.contentType(ContentType.HTML);
+    ctx.header(HttpHeader.VARY.asString(), HttpHeader.ACCEPT_ENCODING.asString());
+    if (page.gzip != null && ContextUtil.acceptsEncoding(ctx, "gzip")) {
+      ctx.header(HttpHeader.CONTENT_ENCODING.asString(), "gzip");
+      ctx.result(page.gzip);
+    } else {
+      ctx.result(page.raw);
+    }
+  }
+
+  private static class Rendered {
+    private final Translations translations;
+    private final Map<String, Map<Integer, Page>> pages;
+
+    private Rendered(Translations translations, Map<String, Map<Integer, Page>> pages) {
+      this.translations = translations;
+      this.pages = pages;
+    }
+  }
+
+  private static class Page {
+    private final byte[] raw;
+    private final byte[] gzip;
+
+    private Page(byte[] raw) throws IOException {
+      this.raw = raw;
+
+      var compressed = gzip(raw);
+      this.gzip = compressed.length < raw.length ? compressed : null;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+      var out = new ByteArrayOutputStream(data.length);
+      try (var gzip = new GZIPOutputStream(out)) {
+        gzip.write(data);
+      }
+      return out.toByteArray();
+    }
+  }
+}
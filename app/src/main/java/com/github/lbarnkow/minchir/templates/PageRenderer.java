@@ -0,0 +1,55 @@
+package com.github.lbarnkow.minchir.templates;
+
+import java.util.Map;
+
+import com.github.lbarnkow.minchir.metrics.Histogram;
+import com.github.lbarnkow.minchir.metrics.Metrics;
+
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+
+/**
+ * Renders templates straight into pooled UTF-8 buffers that are handed to the response as a stream, so a page
+ * view neither builds the page as a {@code String} nor copies it into a fresh byte array.
+ */
+public class PageRenderer {
+
+  private final TemplateRenderer templates;
+  private final Map<String, ?> globals;
+  private final RenderBufferPool buffers = new RenderBufferPool();
+
+  public PageRenderer(TemplateRenderer templates, Map<String, ?> globals) {
+    this.templates = templates;
+    this.globals = globals;
+  }
+
+  public TemplateRenderer getTemplates() {
+    return templates;
+  }
+
+  /**
+   * Variables available to all templates, independent of request and language.
+   */
+  public Map<String, ?> getGlobals() {
+    return globals;
+  }
+
+  public boolean contains(String template) {
+    return templates.contains(template);
+  }
+
+  public void render(Context ctx, String template, Map<String, Object> model) throws Exception {
+    var buffer = buffers.acquire();
+    try (var timer = Metrics.RENDER_DURATION.labels(template).startTimer("render") //
+        .outcome(Histogram.Timer.ERROR)) {
+      templates.render(template, model, buffer.writer());
+      timer.outcome(Histogram.Timer.OK);
+
+      ctx.contentType(ContentType.HTML);
+      ctx.result(buffer.toInputStream());
+    } catch (Exception e) {
+      buffer.release();
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.github.lbarnkow.minchir.templates;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of reusable buffers that templates are rendered into as UTF-8 bytes. Buffers that are never returned
+ * (e.g. because a response was discarded) are simply garbage collected.
+ */
+public class RenderBufferPool {
+
+  public static final int DEFAULT_POOL_SIZE = 64;
+  public static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+  public static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+
+  private final BlockingQueue<PooledBytes> buffers;
+
+  public RenderBufferPool() {
+    this(DEFAULT_POOL_SIZE);
+  }
+
+  public RenderBufferPool(int size) {
+    buffers = new ArrayBlockingQueue<>(size);
+  }
+
+  public RenderBuffer acquire() {
+    var bytes = buffers.poll();
+    if (bytes == null) {
+      bytes = new PooledBytes();
+    }
+    return new RenderBuffer(this, bytes, bytes.generation.incrementAndGet());
+  }
+
+  private void release(PooledBytes bytes, long generation, boolean flushed) {
+    // only the current holder can hand a buffer back, and only once; stale or repeated releases are ignored
+    if (!bytes.generation.compareAndSet(generation, generation + 1)) {
+      return;
+    }
+    if (!flushed) {
+      // the encoder may still hold characters of an unfinished page, they must never reach the next request
+      bytes.writer = new OutputStreamWriter(bytes, UTF_8);
+    }
+    bytes.reset();
+
+    if (bytes.capacity() <= MAX_RETAINED_BUFFER_SIZE) {
+      buffers.offer(bytes);
+    }
+  }
+
+  /**
+   * One use of a pooled buffer, from {@link #acquire()} until it is released.
+   */
+  public static final class RenderBuffer {
+    private final RenderBufferPool pool;
+    private final PooledBytes bytes;
+    private final long generation;
+
+    private RenderBuffer(RenderBufferPool pool, PooledBytes bytes, long generation) {
+      this.pool = pool;
+      this.bytes = bytes;
+      this.generation = generation;
+    }
+
+    /**
+     * A writer that encodes into this buffer; must not be closed.
+     */
+    public Writer writer() {
+      return bytes.writer;
+    }
+
+    /**
+     * Flushes pending characters and exposes the rendered bytes without copying them. Closing the returned
+     * stream hands this buffer back to its pool.
+     */
+    public InputStream toInputStream() throws IOException {
+      bytes.writer.flush();
+
+      return new ByteArrayInputStream(bytes.array(), 0, bytes.size()) {
+        @Override
+        public void close() {
+          pool.release(bytes, generation, true);
+        }
+      };
+    }
+
+    /**
+     * Hands the buffer back without using its content, e.g. after rendering failed.
+     */
+    public void release() {
+      pool.release(bytes, generation, false);
+    }
+  }
+
+  private static final class PooledBytes extends ByteArrayOutputStream {
+    private final AtomicLong generation = new AtomicLong();
+    private Writer writer = new OutputStreamWriter(this, UTF_8);
+
+    private PooledBytes() {
+      super(INITIAL_BUFFER_SIZE);
+    }
+
+    private byte[] array() {
+      return buf;
+    }
+
+    private int capacity() {
+      return buf.length;
+    }
+  }
+}
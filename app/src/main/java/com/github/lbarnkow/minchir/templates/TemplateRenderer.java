@@ -0,0 +1,57 @@
+package com.github.lbarnkow.minchir.templates;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.github.lbarnkow.minchir.config.Config;
+
+public interface TemplateRenderer {
+
+  String TEMPLATE_SUFFIX = ".vtl";
+
+  String ENGINE_VELOCITY = "velocity";
+  String ENGINE_COMPILED = "compiled";
+
+  boolean contains(String name);
+
+  void render(String name, Map<String, Object> model, Writer writer) throws IOException;
+
+  default String render(String name, Map<String, Object> model) throws IOException {
+    var writer = new StringWriter();
+    render(name, model, writer);
+    return writer.toString();
+  }
+
+  static TemplateRenderer create(Config config) throws IOException {
+    var templates = config.getTemplates();
+    var engine = templates != null && templates.getEngine() != null ? templates.getEngine() : ENGINE_VELOCITY;
+
+    switch (engine) {
+      case ENGINE_VELOCITY:
+        return new VelocityTemplateRenderer(config);
+      case ENGINE_COMPILED:
+        return new CompiledTemplateRenderer(config);
+      default:
+        throw new RuntimeException(String.format("Unknown template engine '%s'; expected one of [%s, %s]!", engine,
+            ENGINE_VELOCITY, ENGINE_COMPILED));
+    }
+  }
+
+  static Map<String, File> findTemplates(String templatesPath) {
+    var files = new File(templatesPath).listFiles((dir, name) -> name.endsWith(TEMPLATE_SUFFIX));
+    if (files == null) {
+      throw new RuntimeException(String.format("Template folder '%s' does not exist!", templatesPath));
+    }
+
+    var result = new TreeMap<String, File>();
+    for (var file : files) {
+      var name = file.getName().substring(0, file.getName().length() - TEMPLATE_SUFFIX.length());
+      result.put(name, file);
+    }
+    return result;
+  }
+}
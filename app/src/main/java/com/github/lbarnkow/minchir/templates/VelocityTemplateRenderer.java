@@ -0,0 +1,84 @@
+package com.github.lbarnkow.minchir.templates;
+
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+
+public class VelocityTemplateRenderer implements TemplateRenderer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(VelocityTemplateRenderer.class);
+
+  private final VelocityEngine engine;
+  private final Map<String, Template> templates = new HashMap<>();
+  private final boolean checkModifications;
+
+  public VelocityTemplateRenderer(Config config) {
+    var templatesPath = config.getServer().getAssetsPath("templates");
+    var checkInterval = modificationCheckInterval(config);
+
+    var properties = new Properties();
+    properties.setProperty(RuntimeConstants.RESOURCE_LOADERS, "file");
+    properties.setProperty(RuntimeConstants.FILE_RESOURCE_LOADER_PATH, templatesPath);
+    properties.setProperty(RuntimeConstants.FILE_RESOURCE_LOADER_CACHE, "true");
+    properties.setProperty("resource.loader.file." + RuntimeConstants.RESOURCE_LOADER_CHECK_INTERVAL,
+        String.valueOf(checkInterval));
+    properties.setProperty(RuntimeConstants.INPUT_ENCODING, RuntimeConstants.ENCODING_DEFAULT);
+
+    engine = new VelocityEngine(properties);
+    engine.init();
+
+    checkModifications = checkInterval > 0;
+
+    for (var entry : TemplateRenderer.findTemplates(templatesPath).entrySet()) {
+      templates.put(entry.getKey(), engine.getTemplate(entry.getValue().getName()));
+      LOG.debug("Loaded and parsed template '{}'.", entry.getValue().getName());
+    }
+
+    LOG.info("Loaded {} velocity templates from '{}' (modification check interval: {}s).", templates.size(),
+        templatesPath, checkInterval);
+  }
+
+  @Override
+  public boolean contains(String name) {
+    return templates.containsKey(name);
+  }
+
+  @Override
+  public void render(String name, Map<String, Object> model, Writer writer) {
+    // directives like #foreach write into the context; keep those writes off the (read-only) model
+    var context = new VelocityContext(new VelocityContext(model));
+    get(name).merge(context, writer);
+  }
+
+  private Template get(String name) {
+    var template = templates.get(name);
+    if (template == null) {
+      throw new RuntimeException(String.format("Unknown template '%s'!", name));
+    }
+
+    if (checkModifications) {
+      // the engine's resource cache only reloads the template if its modification check interval elapsed
+      return engine.getTemplate(template.getName());
+    }
+
+    return template;
+  }
+
+  private static long modificationCheckInterval(Config config) {
+    var templates = config.getTemplates();
+    if (templates == null || templates.getModificationCheckIntervalSeconds() == null) {
+      return 0;
+    }
+    return templates.getModificationCheckIntervalSeconds();
+  }
+}
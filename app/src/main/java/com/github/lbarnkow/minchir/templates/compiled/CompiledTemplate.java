@@ -0,0 +1,23 @@
+package com.github.lbarnkow.minchir.templates.compiled;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+public class CompiledTemplate {
+  private final String name;
+  private final Node[] nodes;
+
+  CompiledTemplate(String name, Node[] nodes) {
+    this.name = name;
+    this.nodes = nodes;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void render(Map<String, Object> model, Writer writer) throws IOException {
+    Nodes.renderAll(nodes, Scope.of(model), writer);
+  }
+}
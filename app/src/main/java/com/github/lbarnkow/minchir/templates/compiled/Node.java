@@ -0,0 +1,8 @@
+package com.github.lbarnkow.minchir.templates.compiled;
+
+import java.io.IOException;
+import java.io.Writer;
+
+public interface Node {
+  void render(Scope scope, Writer writer) throws IOException;
+}
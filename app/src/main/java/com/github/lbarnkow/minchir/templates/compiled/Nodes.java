@@ -0,0 +1,144 @@
+package com.github.lbarnkow.minchir.templates.compiled;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+final class Nodes {
+
+  private Nodes() {}
+
+  static void renderAll(Node[] nodes, Scope scope, Writer writer) throws IOException {
+    for (var node : nodes) {
+      node.render(scope, writer);
+    }
+  }
+
+  static final class Text implements Node {
+    private final String text;
+
+    Text(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public void render(Scope scope, Writer writer) throws IOException {
+      writer.write(text);
+    }
+  }
+
+  static final class Ref implements Node {
+    private final Reference reference;
+    private final boolean quiet;
+    private final String source;
+
+    Ref(Reference reference, boolean quiet, String source) {
+      this.reference = reference;
+      this.quiet = quiet;
+      this.source = source;
+    }
+
+    @Override
+    public void render(Scope scope, Writer writer) throws IOException {
+      var value = reference.evaluate(scope);
+      if (value != null) {
+        writer.write(value.toString());
+      } else if (!quiet) {
+        // velocity renders unresolved, non-quiet references verbatim
+        writer.write(source);
+      }
+    }
+  }
+
+  static final class Condition {
+    private final Reference reference;
+    private final boolean negated;
+
+    Condition(Reference reference, boolean negated) {
+      this.reference = reference;
+      this.negated = negated;
+    }
+
+    boolean test(Scope scope) {
+      return reference.isTrue(scope) != negated;
+    }
+  }
+
+  static final class If implements Node {
+    private final List<Condition> conditions;
+    private final List<Node[]> branches;
+    private final Node[] otherwise;
+
+    If(List<Condition> conditions, List<Node[]> branches, Node[] otherwise) {
+      this.conditions = conditions;
+      this.branches = branches;
+      this.otherwise = otherwise;
+    }
+
+    @Override
+    public void render(Scope scope, Writer writer) throws IOException {
+      for (var i = 0; i < conditions.size(); i++) {
+        if (conditions.get(i).test(scope)) {
+          renderAll(branches.get(i), scope, writer);
+          return;
+        }
+      }
+      renderAll(otherwise, scope, writer);
+    }
+  }
+
+  static final class Foreach implements Node {
+    private final String variable;
+    private final Reference source;
+    private final Node[] body;
+
+    Foreach(String variable, Reference source, Node[] body) {
+      this.variable = variable;
+      this.source = source;
+      this.body = body;
+    }
+
+    @Override
+    public void render(Scope scope, Writer writer) throws IOException {
+      var iterator = iterator(source.evaluate(scope));
+      if (iterator == null) {
+        return;
+      }
+
+      var loopScope = scope.with(variable);
+      while (iterator.hasNext()) {
+        loopScope.set(iterator.next());
+        renderAll(body, loopScope, writer);
+      }
+    }
+
+    private static Iterator<?> iterator(Object value) {
+      if (value instanceof Iterable) {
+        return ((Iterable<?>) value).iterator();
+      } else if (value instanceof Map) {
+        return ((Map<?, ?>) value).values().iterator();
+      } else if (value instanceof Iterator) {
+        return (Iterator<?>) value;
+      } else if (value != null && value.getClass().isArray()) {
+        var length = Array.getLength(value);
+        return new Iterator<Object>() {
+          private int index = 0;
+
+          @Override
+          public boolean hasNext() {
+            return index < length;
+          }
+
+          @Override
+          public Object next() {
+            return Array.get(value, index++);
+          }
+        };
+      }
+      return null;
+    }
+  }
+}
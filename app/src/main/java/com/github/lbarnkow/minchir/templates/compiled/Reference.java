@@ -0,0 +1,105 @@
+package com.github.lbarnkow.minchir.templates.compiled;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * A variable reference like {@code ${scope.getValue()}}, resolved with plain map lookups and a fixed set of
+ * accessors instead of reflection.
+ */
+public final class Reference {
+  private final String root;
+  private final List<UnaryOperator<Object>> accessors;
+
+  Reference(String root, List<UnaryOperator<Object>> accessors) {
+    this.root = root;
+    this.accessors = accessors;
+  }
+
+  Object evaluate(Scope scope) {
+    var value = scope.lookup(root);
+    for (var i = 0; value != null && i < accessors.size(); i++) {
+      value = accessors.get(i).apply(value);
+    }
+    return value;
+  }
+
+  boolean isTrue(Scope scope) {
+    var value = evaluate(scope);
+
+    // mirrors velocity's default 'directive.if.empty_check'
+    if (value == null) {
+      return false;
+    } else if (value instanceof Boolean) {
+      return (Boolean) value;
+    } else if (value instanceof CharSequence) {
+      return ((CharSequence) value).length() > 0;
+    } else if (value instanceof Collection) {
+      return !((Collection<?>) value).isEmpty();
+    } else if (value instanceof Map) {
+      return !((Map<?, ?>) value).isEmpty();
+    } else if (value.getClass().isArray()) {
+      return Array.getLength(value) > 0;
+    } else if (value instanceof Number) {
+      return ((Number) value).doubleValue() != 0;
+    }
+    return true;
+  }
+
+  static UnaryOperator<Object> accessor(String name, boolean call) {
+    if (call) {
+      switch (name) {
+        case "entrySet":
+          return v -> v instanceof Map ? ((Map<?, ?>) v).entrySet() : null;
+        case "keySet":
+          return v -> v instanceof Map ? ((Map<?, ?>) v).keySet() : null;
+        case "values":
+          return v -> v instanceof Map ? ((Map<?, ?>) v).values() : null;
+        case "getKey":
+          return v -> v instanceof Map.Entry ? ((Map.Entry<?, ?>) v).getKey() : null;
+        case "getValue":
+          return v -> v instanceof Map.Entry ? ((Map.Entry<?, ?>) v).getValue() : null;
+        case "size":
+          return Reference::size;
+        case "isEmpty":
+          return v -> {
+            var size = size(v);
+            return size == null ? null : size == 0;
+          };
+        case "toString":
+          return Object::toString;
+        default:
+          return null;
+      }
+    }
+
+    switch (name) {
+      case "key":
+        return v -> v instanceof Map.Entry ? ((Map.Entry<?, ?>) v).getKey() : mapGet(v, name);
+      case "value":
+        return v -> v instanceof Map.Entry ? ((Map.Entry<?, ?>) v).getValue() : mapGet(v, name);
+      default:
+        return v -> mapGet(v, name);
+    }
+  }
+
+  private static Object mapGet(Object target, String key) {
+    return target instanceof Map ? ((Map<?, ?>) target).get(key) : null;
+  }
+
+  private static Integer size(Object target) {
+    if (target instanceof Collection) {
+      return ((Collection<?>) target).size();
+    } else if (target instanceof Map) {
+      return ((Map<?, ?>) target).size();
+    } else if (target instanceof CharSequence) {
+      return ((CharSequence) target).length();
+    } else if (target.getClass().isArray()) {
+      return Array.getLength(target);
+    }
+    return null;
+  }
+}
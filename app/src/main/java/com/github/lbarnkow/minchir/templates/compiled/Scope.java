@@ -0,0 +1,40 @@
+package com.github.lbarnkow.minchir.templates.compiled;
+
+import java.util.Map;
+
+/**
+ * Variable lookup for a single render call: loop variables first, then the template model.
+ */
+public final class Scope {
+  private final Map<String, Object> model;
+  private final Scope parent;
+  private final String name;
+  private Object value;
+
+  private Scope(Map<String, Object> model, Scope parent, String name) {
+    this.model = model;
+    this.parent = parent;
+    this.name = name;
+  }
+
+  public static Scope of(Map<String, Object> model) {
+    return new Scope(model, null, null);
+  }
+
+  Scope with(String name) {
+    return new Scope(model, this, name);
+  }
+
+  void set(Object value) {
+    this.value = value;
+  }
+
+  Object lookup(String key) {
+    for (var scope = this; scope.name != null; scope = scope.parent) {
+      if (scope.name.equals(key)) {
+        return scope.value;
+      }
+    }
+    return model.get(key);
+  }
+}
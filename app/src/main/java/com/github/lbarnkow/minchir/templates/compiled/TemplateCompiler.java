@@ -0,0 +1,467 @@
+package com.github.lbarnkow.minchir.templates.compiled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compiles the subset of the velocity template language used by minchir's templates ({@code ${ref}},
+ * {@code $!{ref}}, {@code #if}/{@code #elseif}/{@code #else}, {@code #foreach}, {@code #end} and comments) into a
+ * tree of {@link Node}s. Anything outside of that subset is rejected when compiling, not when rendering.
+ */
+public class TemplateCompiler {
+
+  private static final Set<String> UNSUPPORTED_DIRECTIVES = Set.of( //
+      "set", "macro", "parse", "include", "define", "evaluate", "break", "stop");
+
+  private enum Kind {
+    TEXT, REF, IF, ELSEIF, ELSE, END, FOREACH
+  }
+
+  private static final class Token {
+    private final Kind kind;
+    private final int line;
+    private String text;
+    private Node node;
+    private Nodes.Condition condition;
+    private String variable;
+    private Reference reference;
+
+    private Token(Kind kind, int line) {
+      this.kind = kind;
+      this.line = line;
+    }
+
+    private boolean isDirective() {
+      return kind != Kind.TEXT && kind != Kind.REF;
+    }
+  }
+
+  private final String name;
+  private final String source;
+  private final List<Token> tokens = new ArrayList<>();
+  private final StringBuilder text = new StringBuilder();
+  private int pos = 0;
+  private int cursor = 0;
+
+  private TemplateCompiler(String name, String source) {
+    this.name = name;
+    this.source = source;
+  }
+
+  public static CompiledTemplate compile(String name, String source) {
+    var compiler = new TemplateCompiler(name, source);
+    compiler.tokenize();
+    compiler.gobbleDirectiveLines();
+
+    var nodes = compiler.parseBlock();
+    if (compiler.cursor < compiler.tokens.size()) {
+      throw compiler.error(compiler.tokens.get(compiler.cursor).line, "#end/#else without matching #if/#foreach");
+    }
+
+    return new CompiledTemplate(name, nodes);
+  }
+
+  private void tokenize() {
+    while (pos < source.length()) {
+      var c = source.charAt(pos);
+      if (c == '$' && tryReference()) {
+        continue;
+      }
+      if (c == '#' && (tryComment() || tryDirective())) {
+        continue;
+      }
+      text.append(c);
+      pos++;
+    }
+    flushText();
+  }
+
+  private void flushText() {
+    if (text.length() > 0) {
+      var token = new Token(Kind.TEXT, line(pos));
+      token.text = text.toString();
+      tokens.add(token);
+      text.setLength(0);
+    }
+  }
+
+  private boolean tryReference() {
+    var start = pos;
+    var parsed = parseReference(start);
+    if (parsed == null) {
+      return false;
+    }
+
+    flushText();
+    var token = new Token(Kind.REF, line(start));
+    token.node = new Nodes.Ref(parsed.reference, parsed.quiet, source.substring(start, parsed.end));
+    tokens.add(token);
+    pos = parsed.end;
+    return true;
+  }
+
+  private boolean tryComment() {
+    if (source.startsWith("##", pos)) {
+      var end = source.indexOf('\n', pos);
+      pos = end < 0 ? source.length() : end + 1;
+      return true;
+    }
+    if (source.startsWith("#*", pos)) {
+      var end = source.indexOf("*#", pos + 2);
+      if (end < 0) {
+        throw error(line(pos), "unterminated #* comment");
+      }
+      pos = end + 2;
+      return true;
+    }
+    if (source.startsWith("#[[", pos)) {
+      var end = source.indexOf("]]#", pos + 3);
+      if (end < 0) {
+        throw error(line(pos), "unterminated #[[ block");
+      }
+      text.append(source, pos + 3, end);
+      pos = end + 3;
+      return true;
+    }
+    return false;
+  }
+
+  private boolean tryDirective() {
+    var start = pos;
+    var i = pos + 1;
+    String directive;
+
+    if (i < source.length() && source.charAt(i) == '{') {
+      var close = source.indexOf('}', i);
+      if (close < 0) {
+        return false;
+      }
+      directive = source.substring(i + 1, close);
+      i = close + 1;
+    } else {
+      var end = i;
+      while (end < source.length() && Character.isLetter(source.charAt(end))) {
+        end++;
+      }
+      directive = source.substring(i, end);
+      i = end;
+    }
+
+    var line = line(start);
+    switch (directive) {
+      case "else":
+      case "end":
+        flushText();
+        tokens.add(new Token(directive.equals("else") ? Kind.ELSE : Kind.END, line));
+        pos = i;
+        return true;
+      case "if":
+      case "elseif":
+      case "foreach": {
+        var args = arguments(i, directive, line);
+        flushText();
+        var token = new Token(directive.equals("foreach") ? Kind.FOREACH : //
+            directive.equals("if") ? Kind.IF : Kind.ELSEIF, line);
+        if (token.kind == Kind.FOREACH) {
+          parseForeach(token, args);
+        } else {
+          token.condition = parseCondition(args, line);
+        }
+        tokens.add(token);
+        return true;
+      }
+      default:
+        if (UNSUPPORTED_DIRECTIVES.contains(directive)) {
+          throw error(line, "directive #" + directive + " is not supported by the compiled template engine");
+        }
+        return false;
+    }
+  }
+
+  private String arguments(int i, String directive, int line) {
+    while (i < source.length() && Character.isWhitespace(source.charAt(i))) {
+      i++;
+    }
+    if (i >= source.length() || source.charAt(i) != '(') {
+      throw error(line, "#" + directive + " needs arguments in parentheses");
+    }
+
+    var depth = 0;
+    for (var end = i; end < source.length(); end++) {
+      var c = source.charAt(end);
+      if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        pos = end + 1;
+        return source.substring(i + 1, end).trim();
+      }
+    }
+    throw error(line, "unbalanced parentheses in #" + directive);
+  }
+
+  private Nodes.Condition parseCondition(String args, int line) {
+    var negated = args.startsWith("!");
+    var expression = negated ? args.substring(1).trim() : args;
+
+    var parsed = expression.startsWith("$") ? parseReference(expression, 0) : null;
+    if (parsed == null || parsed.end != expression.length()) {
+      throw error(line, "unsupported condition '" + args + "'; only (negated) references are supported");
+    }
+    return new Nodes.Condition(parsed.reference, negated);
+  }
+
+  private void parseForeach(Token token, String args) {
+    var parts = args.split("\\s+in\\s+", 2);
+    var variable = parts.length == 2 ? parseReference(parts[0].trim(), 0) : null;
+    var iterable = parts.length == 2 ? parseReference(parts[1].trim(), 0) : null;
+
+    if (variable == null || iterable == null || variable.path.size() != 1
+        || iterable.end != parts[1].trim().length()) {
+      throw error(token.line, "unsupported #foreach arguments '" + args + "'");
+    }
+
+    token.variable = variable.path.get(0);
+    token.reference = iterable.reference;
+  }
+
+  private static final class ParsedReference {
+    private Reference reference;
+    private List<String> path;
+    private boolean quiet;
+    private int end;
+  }
+
+  private ParsedReference parseReference(int start) {
+    return parseReference(source, start);
+  }
+
+  private ParsedReference parseReference(String input, int start) {
+    var i = start + 1;
+    var result = new ParsedReference();
+
+    if (i < input.length() && input.charAt(i) == '!') {
+      result.quiet = true;
+      i++;
+    }
+
+    String expression;
+    if (i < input.length() && input.charAt(i) == '{') {
+      var close = input.indexOf('}', i);
+      if (close < 0) {
+        return null;
+      }
+      expression = input.substring(i + 1, close);
+      result.end = close + 1;
+    } else {
+      var end = shorthandEnd(input, i);
+      if (end == i) {
+        return null;
+      }
+      expression = input.substring(i, end);
+      result.end = end;
+    }
+
+    return compileReference(expression, result) ? result : null;
+  }
+
+  private static int shorthandEnd(String input, int i) {
+    if (i >= input.length() || !Character.isLetter(input.charAt(i))) {
+      return i;
+    }
+
+    var end = identifierEnd(input, i);
+    while (end + 1 < input.length() && input.charAt(end) == '.' && Character.isLetter(input.charAt(end + 1))) {
+      end = identifierEnd(input, end + 1);
+      if (input.startsWith("()", end)) {
+        end += 2;
+      }
+    }
+    return end;
+  }
+
+  private static int identifierEnd(String input, int i) {
+    while (i < input.length()) {
+      var c = input.charAt(i);
+      if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  private boolean compileReference(String expression, ParsedReference result) {
+    var segments = expression.split("\\.", -1);
+    var path = new ArrayList<String>();
+    var accessors = new ArrayList<UnaryOperator<Object>>();
+
+    for (var i = 0; i < segments.length; i++) {
+      var segment = segments[i];
+      var call = segment.endsWith("()");
+      var identifier = call ? segment.substring(0, segment.length() - 2) : segment;
+
+      if (identifier.isEmpty() || !Character.isLetter(identifier.charAt(0))
+          || identifierEnd(identifier, 0) != identifier.length() || (call && i == 0)) {
+        if (segment.contains("(")) {
+          throw error(line(pos), "unsupported method call in reference '" + expression + "'");
+        }
+        return false;
+      }
+
+      path.add(identifier);
+      if (i > 0) {
+        var accessor = Reference.accessor(identifier, call);
+        if (accessor == null) {
+          throw error(line(pos), "unsupported method '" + identifier + "()' in reference '" + expression + "'");
+        }
+        accessors.add(accessor);
+      }
+    }
+
+    result.path = path;
+    result.reference = new Reference(path.get(0), List.copyOf(accessors));
+    return true;
+  }
+
+  /**
+   * Mimics velocity's default 'lines' space gobbling: a directive that is alone on its line swallows the
+   * line's indentation and the trailing newline.
+   */
+  private void gobbleDirectiveLines() {
+    var lineStart = true;
+    var prevLineStart = true;
+
+    for (var i = 0; i < tokens.size(); i++) {
+      var token = tokens.get(i);
+      var startsLine = lineStart;
+
+      if (token.isDirective()) {
+        var prev = i > 0 ? tokens.get(i - 1) : null;
+        var next = i + 1 < tokens.size() ? tokens.get(i + 1) : null;
+
+        var leading = startsLine;
+        var prevCut = -1;
+        if (prev != null && prev.kind == Kind.TEXT) {
+          var newline = prev.text.lastIndexOf('\n');
+          leading = isBlank(prev.text.substring(newline + 1)) && (newline >= 0 || prevLineStart);
+          prevCut = newline + 1;
+        }
+
+        var trailing = next == null;
+        var nextCut = 0;
+        if (next != null && next.kind == Kind.TEXT) {
+          var newline = next.text.indexOf('\n');
+          var prefix = newline >= 0 ? next.text.substring(0, newline) : next.text;
+          trailing = isBlank(prefix) && (newline >= 0 || i + 2 == tokens.size());
+          nextCut = newline >= 0 ? newline + 1 : next.text.length();
+        }
+
+        lineStart = false;
+        if (leading && trailing) {
+          if (prevCut >= 0) {
+            prev.text = prev.text.substring(0, prevCut);
+          }
+          if (next != null) {
+            next.text = next.text.substring(nextCut);
+          }
+          lineStart = true;
+        }
+      } else if (token.kind == Kind.TEXT) {
+        var newline = token.text.lastIndexOf('\n');
+        lineStart = newline >= 0 ? newline == token.text.length() - 1 : (startsLine && token.text.isEmpty());
+      } else {
+        lineStart = false;
+      }
+
+      prevLineStart = startsLine;
+    }
+  }
+
+  private static boolean isBlank(String s) {
+    for (var i = 0; i < s.length(); i++) {
+      var c = s.charAt(i);
+      if (c != ' ' && c != '\t' && c != '\r') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Node[] parseBlock() {
+    var nodes = new ArrayList<Node>();
+
+    while (cursor < tokens.size()) {
+      var token = tokens.get(cursor);
+      switch (token.kind) {
+        case TEXT:
+          cursor++;
+          if (!token.text.isEmpty()) {
+            nodes.add(new Nodes.Text(token.text));
+          }
+          break;
+        case REF:
+          cursor++;
+          nodes.add(token.node);
+          break;
+        case IF:
+          cursor++;
+          nodes.add(parseIf(token));
+          break;
+        case FOREACH:
+          cursor++;
+          var body = parseBlock();
+          expectEnd(token);
+          nodes.add(new Nodes.Foreach(token.variable, token.reference, body));
+          break;
+        default:
+          return nodes.toArray(new Node[0]);
+      }
+    }
+
+    return nodes.toArray(new Node[0]);
+  }
+
+  private Node parseIf(Token ifToken) {
+    var conditions = new ArrayList<Nodes.Condition>();
+    var branches = new ArrayList<Node[]>();
+    var otherwise = new Node[0];
+
+    conditions.add(ifToken.condition);
+    branches.add(parseBlock());
+
+    while (cursor < tokens.size() && tokens.get(cursor).kind == Kind.ELSEIF) {
+      conditions.add(tokens.get(cursor++).condition);
+      branches.add(parseBlock());
+    }
+    if (cursor < tokens.size() && tokens.get(cursor).kind == Kind.ELSE) {
+      cursor++;
+      otherwise = parseBlock();
+    }
+
+    expectEnd(ifToken);
+    return new Nodes.If(conditions, branches, otherwise);
+  }
+
+  private void expectEnd(Token opening) {
+    if (cursor >= tokens.size() || tokens.get(cursor).kind != Kind.END) {
+      throw error(opening.line, "missing #end for #" + opening.kind.name().toLowerCase());
+    }
+    cursor++;
+  }
+
+  private int line(int offset) {
+    var line = 1;
+    for (var i = 0; i < offset && i < source.length(); i++) {
+      if (source.charAt(i) == '\n') {
+        line++;
+      }
+    }
+    return line;
+  }
+
+  private RuntimeException error(int line, String message) {
+    return new RuntimeException(String.format("Failed to compile template '%s' (line %d): %s!", name, line, message));
+  }
+}
@@ -0,0 +1,37 @@
+package com.github.lbarnkow.minchir.tracing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends each span as one line of JSON to a local file, handy to verify tracing without a collector.
+ */
+public class FileSpanExporter implements SpanExporter {
+
+  private final BufferedWriter writer;
+
+  public FileSpanExporter(String file) {
+    try {
+      writer = Files.newBufferedWriter(Path.of(file), StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      throw new RuntimeException(String.format("Failed to open trace file '%s'!", file), e);
+    }
+  }
+
+  @Override
+  public synchronized void export(Span span) throws IOException {
+    writer.write(LogSpanExporter.toJson(span));
+    writer.newLine();
+    writer.flush();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+}
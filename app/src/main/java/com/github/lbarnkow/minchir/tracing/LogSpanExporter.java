@@ -0,0 +1,48 @@
+package com.github.lbarnkow.minchir.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+
+/**
+ * Writes each span as one line of JSON (roughly the OTLP span shape) to the 'minchir.trace' logger.
+ */
+public class LogSpanExporter implements SpanExporter {
+
+  private static final Logger TRACE_LOG = LoggerFactory.getLogger("minchir.trace");
+  private static final Gson GSON = new Gson();
+
+  @Override
+  public void export(Span span) {
+    TRACE_LOG.info(toJson(span));
+  }
+
+  static String toJson(Span span) {
+    var json = new LinkedHashMap<String, Object>();
+    json.put("traceId", span.getTraceId());
+    json.put("spanId", span.getSpanId());
+    if (span.getParentSpanId() != null) {
+      json.put("parentSpanId", span.getParentSpanId());
+    }
+    json.put("name", span.getName());
+    json.put("kind", span.getKind());
+    json.put("startTimeUnixNano", span.getStartEpochNanos());
+    json.put("endTimeUnixNano", span.getEndEpochNanos());
+    json.put("attributes", span.getAttributes());
+    json.put("status", status(span));
+    return GSON.toJson(json);
+  }
+
+  private static Map<String, Object> status(Span span) {
+    var status = new LinkedHashMap<String, Object>();
+    status.put("code", span.getError() == null ? "OK" : "ERROR");
+    if (span.getError() != null) {
+      status.put("message", span.getError());
+    }
+    return status;
+  }
+}
@@ -0,0 +1,202 @@
+package com.github.lbarnkow.minchir.tracing;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.util.StringContentProvider;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+
+/**
+ * Sends spans in batches to an OpenTelemetry collector using OTLP/HTTP with JSON encoding. Spans are queued and posted
+ * by a background thread, so requests never wait for the collector; when the queue is full, new spans are dropped.
+ */
+public class OtlpHttpSpanExporter implements SpanExporter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OtlpHttpSpanExporter.class);
+
+  private static final Gson GSON = new Gson();
+  private static final String SERVICE_NAME = "minchir";
+
+  private static final int MAX_QUEUE_SIZE = 2048;
+  private static final int MAX_BATCH_SIZE = 512;
+  private static final long FLUSH_INTERVAL_MILLISECONDS = 1000;
+  private static final long TIMEOUT_MILLISECONDS = 5000;
+
+  private final String endpoint;
+  private final HttpClient http;
+  private final BlockingQueue<Span> queue = new ArrayBlockingQueue<>(MAX_QUEUE_SIZE);
+  private final AtomicLong dropped = new AtomicLong();
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * @param endpoint the collector's traces url, e.g. {@code http://localhost:4318/v1/traces}
+   */
+  public OtlpHttpSpanExporter(String endpoint) {
+    this.endpoint = endpoint;
+
+    http = new HttpClient(new SslContextFactory.Client());
+    try {
+      http.start();
+    } catch (Exception e) {
+      throw new RuntimeException(String.format("Failed to start http client for OTLP endpoint '%s'!", endpoint), e);
+    }
+
+    scheduler = Executors.newSingleThreadScheduledExecutor(OtlpHttpSpanExporter::daemon);
+    scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLISECONDS, FLUSH_INTERVAL_MILLISECONDS,
+        MILLISECONDS);
+  }
+
+  @Override
+  public void export(Span span) {
+    if (!queue.offer(span)) {
+      dropped.incrementAndGet();
+    }
+  }
+
+  /**
+   * Sends the queued spans, then stops the background thread and the http client.
+   */
+  @Override
+  public void close() throws IOException {
+    scheduler.shutdown();
+    try {
+      scheduler.awaitTermination(TIMEOUT_MILLISECONDS, MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+    try {
+      http.stop();
+    } catch (Exception e) {
+      throw new IOException(String.format("Failed to stop http client for OTLP endpoint '%s'!", endpoint), e);
+    }
+  }
+
+  private synchronized void flush() {
+    var lost = dropped.getAndSet(0);
+    if (lost > 0) {
+      LOG.warn("Dropped {} spans, the OTLP export queue was full!", lost);
+    }
+
+    var batch = new ArrayList<Span>(MAX_BATCH_SIZE);
+    while (queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+      send(batch);
+      batch.clear();
+    }
+  }
+
+  private void send(List<Span> spans) {
+    try {
+      var response = http.POST(endpoint) //
+          .content(new StringContentProvider("application/json", toJson(spans), StandardCharsets.UTF_8)) //
+          .timeout(TIMEOUT_MILLISECONDS, MILLISECONDS) //
+          .send();
+      if (response.getStatus() / 100 != 2) {
+        LOG.warn("OTLP endpoint '{}' rejected {} spans with status {}: {}", endpoint, spans.size(),
+            response.getStatus(), response.getContentAsString());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      LOG.warn("Failed to send {} spans to OTLP endpoint '{}'!", spans.size(), endpoint, e);
+    }
+  }
+
+  private static String toJson(List<Span> spans) {
+    var otlpSpans = new ArrayList<Map<String, Object>>(spans.size());
+    for (var span : spans) {
+      otlpSpans.add(toOtlp(span));
+    }
+
+    var resource = new LinkedHashMap<String, Object>();
+    resource.put("attributes", List.of(attribute("service.name", SERVICE_NAME)));
+    var scopeSpans = new LinkedHashMap<String, Object>();
+    scopeSpans.put("scope", Map.of("name", SERVICE_NAME));
+    scopeSpans.put("spans", otlpSpans);
+    var resourceSpans = new LinkedHashMap<String, Object>();
+    resourceSpans.put("resource", resource);
+    resourceSpans.put("scopeSpans", List.of(scopeSpans));
+    return GSON.toJson(Map.of("resourceSpans", List.of(resourceSpans)));
+  }
+
+  private static Map<String, Object> toOtlp(Span span) {
+    var json = new LinkedHashMap<String, Object>();
+    json.put("traceId", span.getTraceId());
+    json.put("spanId", span.getSpanId());
+    if (span.getParentSpanId() != null) {
+      json.put("parentSpanId", span.getParentSpanId());
+    }
+    json.put("name", span.getName());
+    json.put("kind", kind(span.getKind()));
+    // 64 bit integers are strings in OTLP/JSON
+    json.put("startTimeUnixNano", String.valueOf(span.getStartEpochNanos()));
+    json.put("endTimeUnixNano", String.valueOf(span.getEndEpochNanos()));
+
+    var attributes = new ArrayList<Map<String, Object>>();
+    span.getAttributes().forEach((key, value) -> attributes.add(attribute(key, value)));
+    json.put("attributes", attributes);
+
+    // spans without an error stay STATUS_CODE_UNSET (0); OK is for applications overriding an error
+    var status = new LinkedHashMap<String, Object>();
+    status.put("code", span.getError() == null ? 0 : 2);
+    if (span.getError() != null) {
+      status.put("message", span.getError());
+    }
+    json.put("status", status);
+    return json;
+  }
+
+  private static int kind(String kind) {
+    switch (kind) {
+      case "SERVER":
+        return 2;
+      case "CLIENT":
+        return 3;
+      case "PRODUCER":
+        return 4;
+      case "CONSUMER":
+        return 5;
+      default:
+        return 1; // SPAN_KIND_INTERNAL
+    }
+  }
+
+  private static Map<String, Object> attribute(String key, Object value) {
+    Map<String, Object> anyValue;
+    if (value instanceof Boolean) {
+      anyValue = Map.of("boolValue", value);
+    } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+      anyValue = Map.of("intValue", String.valueOf(value));
+    } else if (value instanceof Number) {
+      anyValue = Map.of("doubleValue", value);
+    } else {
+      anyValue = Map.of("stringValue", String.valueOf(value));
+    }
+    var attribute = new LinkedHashMap<String, Object>();
+    attribute.put("key", key);
+    attribute.put("value", anyValue);
+    return attribute;
+  }
+
+  private static Thread daemon(Runnable runnable) {
+    var thread = new Thread(runnable, "otlp-exporter");
+    thread.setDaemon(true);
+    return thread;
+  }
+}
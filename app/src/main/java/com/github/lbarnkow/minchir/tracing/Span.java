@@ -0,0 +1,125 @@
+package com.github.lbarnkow.minchir.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed operation within a trace. Ids follow the W3C trace context (and OpenTelemetry) format. Closing the span ends
+ * it, restores the previously current span and hands sampled spans to the exporter.
+ */
+public class Span implements AutoCloseable {
+
+  static final Span NOOP = new Span(null, null, null, null, null, false);
+
+  private final Tracer tracer;
+  private final String traceId;
+  private final String spanId;
+  private final String parentSpanId;
+  private final String name;
+  private final boolean sampled;
+
+  private final long startEpochNanos;
+  private final long startNanos;
+  private long endEpochNanos;
+  private String kind = "INTERNAL";
+  private Map<String, Object> attributes;
+  private String error;
+  private Span previous;
+
+  Span(Tracer tracer, String traceId, String spanId, String parentSpanId, String name, boolean sampled) {
+    this.tracer = tracer;
+    this.traceId = traceId;
+    this.spanId = spanId;
+    this.parentSpanId = parentSpanId;
+    this.name = name;
+    this.sampled = sampled;
+    this.startEpochNanos = tracer != null ? Tracer.epochNanos() : 0;
+    this.startNanos = tracer != null ? System.nanoTime() : 0;
+  }
+
+  public Span kind(String kind) {
+    this.kind = kind;
+    return this;
+  }
+
+  public Span attribute(String key, Object value) {
+    if (sampled) {
+      if (attributes == null) {
+        attributes = new LinkedHashMap<>();
+      }
+      attributes.put(key, value);
+    }
+    return this;
+  }
+
+  public Span recordError(Throwable e) {
+    if (sampled) {
+      error = e.getClass().getSimpleName() + (e.getMessage() != null ? ": " + e.getMessage() : "");
+    }
+    return this;
+  }
+
+  /**
+   * @return the w3c {@code traceparent} header value to propagate this span to downstream services
+   */
+  public String traceparent() {
+    return traceId == null ? null : "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+  }
+
+  @Override
+  public void close() {
+    if (tracer == null) {
+      return;
+    }
+    endEpochNanos = startEpochNanos + (System.nanoTime() - startNanos);
+    tracer.end(this);
+  }
+
+  public String getTraceId() {
+    return traceId;
+  }
+
+  public String getSpanId() {
+    return spanId;
+  }
+
+  public String getParentSpanId() {
+    return parentSpanId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getKind() {
+    return kind;
+  }
+
+  public boolean isSampled() {
+    return sampled;
+  }
+
+  public long getStartEpochNanos() {
+    return startEpochNanos;
+  }
+
+  public long getEndEpochNanos() {
+    return endEpochNanos;
+  }
+
+  public Map<String, Object> getAttributes() {
+    return attributes != null ? attributes : Map.of();
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  Span getPrevious() {
+    return previous;
+  }
+
+  void setPrevious(Span previous) {
+    this.previous = previous;
+  }
+}
@@ -0,0 +1,15 @@
+package com.github.lbarnkow.minchir.tracing;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives spans once they have ended. Closed by the {@link Tracer} when tracing is reconfigured.
+ */
+public interface SpanExporter extends Closeable {
+  void export(Span span) throws Exception;
+
+  @Override
+  default void close() throws IOException {
+  }
+}
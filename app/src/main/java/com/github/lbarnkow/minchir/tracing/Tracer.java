@@ -0,0 +1,165 @@
+package com.github.lbarnkow.minchir.tracing;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+
+/**
+ * Minimal tracer: spans nest through a thread local, requests join incoming W3C trace context, and sampled spans are
+ * handed to an exporter once they end. Like the metrics, the tracer is a static singleton; it does nothing (and costs
+ * next to nothing) until configured.
+ */
+public class Tracer {
+
+  public static final String TRACEPARENT = "traceparent";
+
+  private static final Logger LOG = LoggerFactory.getLogger(Tracer.class);
+
+  private static final Pattern TRACEPARENT_PATTERN =
+      Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})");
+  private static final String INVALID_TRACE_ID = "0".repeat(32);
+  private static final String INVALID_SPAN_ID = "0".repeat(16);
+
+  private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+  private static volatile Tracer instance;
+
+  private final double sampleRatio;
+  private final SpanExporter exporter;
+
+  public Tracer(double sampleRatio, SpanExporter exporter) {
+    this.sampleRatio = sampleRatio;
+    this.exporter = exporter;
+  }
+
+  /**
+   * Replaces the current tracer (closing its exporter) with one built from the given config.
+   */
+  public static void configure(Config.Tracing config) {
+    if (!Boolean.TRUE.equals(config.getEnabled())) {
+      configure((Tracer) null);
+      return;
+    }
+    SpanExporter exporter;
+    switch (config.getExporter()) {
+      case "log":
+        exporter = new LogSpanExporter();
+        break;
+      case "file":
+        exporter = new FileSpanExporter(config.getFile());
+        break;
+      case "otlp":
+        exporter = new OtlpHttpSpanExporter(config.getEndpoint());
+        break;
+      default:
+        throw new RuntimeException(String.format("Unknown tracing exporter '%s'! Use 'log', 'file' or 'otlp'.",
+            config.getExporter()));
+    }
+    configure(new Tracer(config.getSampleRatio(), exporter));
+    LOG.info("Tracing enabled; sampling {} of new traces, exporting to '{}'.", config.getSampleRatio(),
+        config.getExporter());
+  }
+
+  public static synchronized void configure(Tracer tracer) {
+    var previous = instance;
+    instance = tracer;
+    if (previous != null && previous != tracer) {
+      previous.close();
+    }
+  }
+
+  /**
+   * Starts a server span continuing the trace of the given {@code traceparent} header (if valid), or a new trace.
+   */
+  public static Span startServerSpan(String name, String traceparent) {
+    var tracer = instance;
+    if (tracer == null) {
+      return Span.NOOP;
+    }
+
+    var matcher = traceparent != null ? TRACEPARENT_PATTERN.matcher(traceparent) : null;
+    if (matcher != null && matcher.matches() && !INVALID_TRACE_ID.equals(matcher.group(1))
+        && !INVALID_SPAN_ID.equals(matcher.group(2))) {
+      var sampled = (Integer.parseInt(matcher.group(3), 16) & 1) == 1;
+      return tracer.start(matcher.group(1), matcher.group(2), name, sampled).kind("SERVER");
+    }
+
+    var traceId = randomId(16);
+    return tracer.start(traceId, null, name, tracer.sample()).kind("SERVER");
+  }
+
+  /**
+   * Starts a child of the current span; outside of a trace this is a no-op.
+   */
+  public static Span startSpan(String name) {
+    var tracer = instance;
+    var parent = CURRENT.get();
+    if (tracer == null || parent == null) {
+      return Span.NOOP;
+    }
+    return tracer.start(parent.getTraceId(), parent.getSpanId(), name, parent.isSampled());
+  }
+
+  public static Span current() {
+    var span = CURRENT.get();
+    return span != null ? span : Span.NOOP;
+  }
+
+  private Span start(String traceId, String parentSpanId, String name, boolean sampled) {
+    var span = new Span(this, traceId, randomId(8), parentSpanId, name, sampled);
+    span.setPrevious(CURRENT.get());
+    CURRENT.set(span);
+    return span;
+  }
+
+  void end(Span span) {
+    if (span.getPrevious() != null) {
+      CURRENT.set(span.getPrevious());
+    } else {
+      CURRENT.remove();
+    }
+    if (span.isSampled()) {
+      try {
+        exporter.export(span);
+      } catch (Exception e) {
+        LOG.warn("Failed to export span '{}'!", span.getName(), e);
+      }
+    }
+  }
+
+  private void close() {
+    try {
+      exporter.close();
+    } catch (Exception e) {
+      LOG.warn("Failed to close span exporter!", e);
+    }
+  }
+
+  private boolean sample() {
+    return sampleRatio >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRatio;
+  }
+
+  static long epochNanos() {
+    var now = Instant.now();
+    return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+  }
+
+  private static String randomId(int bytes) {
+    var random = ThreadLocalRandom.current();
+    var id = new StringBuilder(bytes * 2);
+    for (var i = 0; i < bytes; i += 8) {
+      long value;
+      do {
+        value = random.nextLong();
+      } while (value == 0);
+      var hex = Long.toHexString(value);
+      id.append("0".repeat(16 - hex.length())).append(hex);
+    }
+    return id.toString();
+  }
+}
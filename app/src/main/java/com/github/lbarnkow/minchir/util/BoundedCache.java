@@ -0,0 +1,40 @@
+package com.github.lbarnkow.minchir.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A small, thread-safe memoizing cache for values derived from client input. Instead of tracking usage it simply
+ * starts over once it grows beyond {@code maxSize}, so a client sending random keys can't exhaust the heap while
+ * frequently seen keys are back in the cache right away.
+ */
+public class BoundedCache<K, V> {
+
+  private final int maxSize;
+  private final Map<K, V> entries = new ConcurrentHashMap<>();
+
+  public BoundedCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public V get(K key, Function<K, V> loader) {
+    var value = entries.get(key);
+    if (value == null) {
+      value = loader.apply(key);
+      if (entries.size() >= maxSize) {
+        entries.clear();
+      }
+      entries.put(key, value);
+    }
+    return value;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+}
@@ -3,9 +3,11 @@ package com.github.lbarnkow.minchir.util;
 import java.util.Optional;
 import java.util.function.Function;
 
+import org.eclipse.jetty.http.HttpHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.lbarnkow.minchir.config.Translations;
 import com.github.lbarnkow.minchir.handlers.request.AbstractHandler;
 
 import io.javalin.http.BadRequestResponse;
@@ -26,6 +28,42 @@ public class ContextUtil {
     return getParamOrFail(ctx::formParam, name, Optional.of(defaultValue));
   }
 
+  public static String getLanguage(Context ctx, Translations translations) {
+    return translations.negotiate(ctx.header(HttpHeader.ACCEPT_LANGUAGE.asString()));
+  }
+
+  /**
+   * Whether the request's {@code Accept-Encoding} header allows {@code encoding}, either by name or through
+   * {@code *}, with a non-zero q-value.
+   */
+  public static boolean acceptsEncoding(Context ctx, String encoding) {
+    var acceptEncoding = ctx.header(HttpHeader.ACCEPT_ENCODING.asString());
+    if (acceptEncoding == null || acceptEncoding.indexOf(encoding) < 0 && acceptEncoding.indexOf('*') < 0) {
+      return false;
+    }
+
+    var wildcard = false;
+    for (var coding : acceptEncoding.split(",")) {
+      var parameters = coding.split(";");
+      var name = parameters[0].strip();
+      var accepted = true;
+      for (var i = 1; i < parameters.length; i++) {
+        var parameter = parameters[i].strip();
+        if (parameter.startsWith("q=")) {
+          accepted = !parameter.substring(2).strip().matches("0(\\.0*)?");
+        }
+      }
+
+      if (name.equalsIgnoreCase(encoding)) {
+        return accepted;
+      }
+      if (name.equals("*")) {
+        wildcard = accepted;
+      }
+    }
+    return wildcard;
+  }
+
   private static String getParamOrFail(Function<String, String> fun, String name) {
     return getParamOrFail(fun, name, Optional.empty());
   }
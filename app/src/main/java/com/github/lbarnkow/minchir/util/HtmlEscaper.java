@@ -0,0 +1,156 @@
+package com.github.lbarnkow.minchir.util;
+
+import java.util.Set;
+
+/**
+ * HTML escaping for values that end up in rendered pages. Strings that don't need escaping are returned as is, so the
+ * common case doesn't allocate.
+ */
+public class HtmlEscaper {
+
+  /**
+   * Markup that translations may use. These tags are kept as long as they carry no attributes.
+   */
+  public static final Set<String> ALLOWED_TAGS = Set.of("b", "i", "u", "em", "strong", "br");
+
+  private static final int MAX_TAG_LENGTH = 10;
+
+  /**
+   * Escapes {@code &}, {@code <}, {@code >}, {@code "} and {@code '}, making the result safe for element content and
+   * quoted attribute values.
+   */
+  public static String escape(String value) {
+    if (value == null) {
+      return null;
+    }
+
+    var length = value.length();
+    var i = 0;
+    while (i < length && replacement(value.charAt(i)) == null) {
+      i++;
+    }
+    if (i == length) {
+      return value;
+    }
+
+    var result = new StringBuilder(length + 16);
+    result.append(value, 0, i);
+    for (; i < length; i++) {
+      appendEscaped(result, value.charAt(i));
+    }
+    return result.toString();
+  }
+
+  /**
+   * Like {@link #escape(String)}, but keeps character/entity references and the {@link #ALLOWED_TAGS}. Meant for
+   * trusted, author-provided texts like translations.
+   */
+  public static String sanitize(String value) {
+    if (value == null) {
+      return null;
+    }
+
+    var length = value.length();
+    var result = new StringBuilder(length + 16);
+    var changed = false;
+
+    for (var i = 0; i < length; i++) {
+      var c = value.charAt(i);
+      var keep = 0;
+
+      if (c == '&') {
+        keep = referenceLength(value, i);
+      } else if (c == '<') {
+        keep = allowedTagLength(value, i);
+      }
+
+      if (keep > 0) {
+        result.append(value, i, i + keep);
+        i += keep - 1;
+      } else {
+        changed |= appendEscaped(result, c);
+      }
+    }
+
+    return changed ? result.toString() : value;
+  }
+
+  private static boolean appendEscaped(StringBuilder builder, char c) {
+    var replacement = replacement(c);
+    if (replacement == null) {
+      builder.append(c);
+      return false;
+    }
+    builder.append(replacement);
+    return true;
+  }
+
+  private static String replacement(char c) {
+    switch (c) {
+      case '&':
+        return "&amp;";
+      case '<':
+        return "&lt;";
+      case '>':
+        return "&gt;";
+      case '"':
+        return "&quot;";
+      case '\'':
+        return "&#39;";
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Length of a character or entity reference ({@code &amp;}, {@code &#39;}, {@code &#x1f972;}) starting at
+   * {@code start}, or 0 if there is none.
+   */
+  private static int referenceLength(String value, int start) {
+    var i = start + 1;
+    var hex = false;
+    var numeric = i < value.length() && value.charAt(i) == '#';
+    if (numeric) {
+      i++;
+      hex = i < value.length() && (value.charAt(i) == 'x' || value.charAt(i) == 'X');
+      if (hex) {
+        i++;
+      }
+    }
+
+    var first = i;
+    while (i < value.length() && i - first < 32) {
+      var c = value.charAt(i);
+      var valid = hex ? Character.digit(c, 16) >= 0 : numeric ? Character.isDigit(c) : Character.isLetterOrDigit(c);
+      if (!valid) {
+        break;
+      }
+      i++;
+    }
+
+    if (i == first || i >= value.length() || value.charAt(i) != ';') {
+      return 0;
+    }
+    return i + 1 - start;
+  }
+
+  /**
+   * Length of an attribute-less {@link #ALLOWED_TAGS} tag ({@code <b>}, {@code </b>}, {@code <br/>}) starting at
+   * {@code start}, or 0 if there is none.
+   */
+  private static int allowedTagLength(String value, int start) {
+    var end = value.indexOf('>', start);
+    if (end < 0 || end - start > MAX_TAG_LENGTH) {
+      return 0;
+    }
+
+    var name = value.substring(start + 1, end).strip();
+    if (name.startsWith("/")) {
+      name = name.substring(1);
+    } else if (name.endsWith("/")) {
+      name = name.substring(0, name.length() - 1).strip();
+    }
+
+    return ALLOWED_TAGS.contains(name.toLowerCase()) ? end + 1 - start : 0;
+  }
+}
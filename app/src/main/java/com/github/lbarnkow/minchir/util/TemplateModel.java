@@ -1,45 +1,104 @@
 package com.github.lbarnkow.minchir.util;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import com.github.lbarnkow.minchir.config.Message;
+
+/**
+ * Read-only view of the request's runtime variables layered over a language's translation table and the application
+ * wide globals (e.g. asset URLs). Lookups are delegated to the layers, so building a model doesn't copy any
+ * translations.
+ * <p>
+ * Translations with placeholders are looked up as {@link Message}s and filled from the runtime variables.
+ * <p>
+ * Runtime variables of type {@link String} are HTML escaped once while the model is built. Translations are expected
+ * to be sanitized already (see {@link com.github.lbarnkow.minchir.config.Translations#load(String...)}), just like
+ * non-string runtime variables, which are derived from them.
+ */
 public class TemplateModel implements Map<String, Object> {
 
-  private Map<String, Object> map = new HashMap<>();
+  private final Map<String, Object> runtimeVars;
+  private final Map<String, String> translations;
+  private final Map<String, Message> messages;
+  private final Map<String, ?> globals;
 
-  // TODO: escape / sanitize values?
   public TemplateModel(Map<String, Object> runtimeVars, Map<String, String> translations) {
-    map.putAll(translations);
-    if (runtimeVars != null) {
-      map.putAll(runtimeVars);
+    this(runtimeVars, translations, Collections.emptyMap(), Collections.emptyMap());
+  }
+
+  public TemplateModel(Map<String, Object> runtimeVars, Map<String, String> translations,
+      Map<String, Message> messages, Map<String, ?> globals) {
+    this.runtimeVars = escape(runtimeVars);
+    this.translations = translations;
+    this.messages = messages;
+    this.globals = globals;
+  }
+
+  private static Map<String, Object> escape(Map<String, Object> runtimeVars) {
+    if (runtimeVars == null || runtimeVars.isEmpty()) {
+      return Collections.emptyMap();
     }
+
+    var result = new HashMap<String, Object>(runtimeVars.size() * 2);
+    for (var entry : runtimeVars.entrySet()) {
+      var value = entry.getValue();
+      result.put(entry.getKey(), value instanceof String ? HtmlEscaper.escape((String) value) : value);
+    }
+    return result;
   }
 
+  /**
+   * Counts the distinct keys of all layers without merging them. Messages are keyed like their translations.
+   */
   @Override
   public int size() {
-    return map.size();
+    var size = runtimeVars.size();
+    for (var key : translations.keySet()) {
+      if (!runtimeVars.containsKey(key)) {
+        size++;
+      }
+    }
+    for (var key : globals.keySet()) {
+      if (!runtimeVars.containsKey(key) && !translations.containsKey(key)) {
+        size++;
+      }
+    }
+    return size;
   }
 
   @Override
   public boolean isEmpty() {
-    return map.isEmpty();
+    return runtimeVars.isEmpty() && translations.isEmpty() && globals.isEmpty();
   }
 
   @Override
   public boolean containsKey(Object key) {
-    return map.containsKey(key);
+    return runtimeVars.containsKey(key) || translations.containsKey(key) || globals.containsKey(key);
   }
 
   @Override
   public boolean containsValue(Object value) {
-    return map.containsValue(value);
+    return merged().containsValue(value);
   }
 
   @Override
   public Object get(Object key) {
-    return map.get(key);
+    var value = runtimeVars.get(key);
+    if (value != null) {
+      return value;
+    }
+
+    var message = messages.get(key);
+    if (message != null) {
+      return message.format(runtimeVars);
+    }
+
+    var translation = translations.get(key);
+    return translation != null ? translation : globals.get(key);
   }
 
   @Override
@@ -64,16 +123,27 @@ public class TemplateModel implements Map<String, Object> {
 
   @Override
   public Set<String> keySet() {
-    return map.keySet();
+    return merged().keySet();
   }
 
   @Override
   public Collection<Object> values() {
-    return map.values();
+    return merged().values();
   }
 
   @Override
   public Set<Entry<String, Object>> entrySet() {
-    return map.entrySet();
+    return merged().entrySet();
+  }
+
+  // Copies all layers; only for bulk access (containsValue, keySet, values, entrySet), which rendering never uses.
+  private Map<String, Object> merged() {
+    var map = new HashMap<String, Object>(globals);
+    map.putAll(translations);
+    for (var message : messages.entrySet()) {
+      map.put(message.getKey(), message.getValue().format(runtimeVars));
+    }
+    map.putAll(runtimeVars);
+    return Collections.unmodifiableMap(map);
   }
 }
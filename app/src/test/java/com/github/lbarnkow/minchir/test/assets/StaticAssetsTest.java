@@ -0,0 +1,160 @@
+package com.github.lbarnkow.minchir.test.assets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.lbarnkow.minchir.assets.ResponsiveImage;
+import com.github.lbarnkow.minchir.assets.StaticAssets;
+import com.github.lbarnkow.minchir.config.Config;
+
+import io.javalin.Javalin;
+import io.javalin.testtools.TestUtil;
+import okhttp3.Request;
+
+public class StaticAssetsTest {
+
+  private static final String STATIC = "assets/static/";
+
+  private static StaticAssets assets;
+
+  @BeforeAll
+  static void setup() throws Exception {
+    assets = StaticAssets.load(STATIC);
+  }
+
+  @Test
+  void testFingerprintedUrls() {
+    var url = assets.getTemplateVariables().get("asset_css_bootstrap_5_1_3_min_css");
+
+    assertThat(url).matches("/css/bootstrap-5\\.1\\.3\\.min\\.[0-9a-f]{16}\\.css");
+    assertThat(assets.get(url.substring(1))).isSameAs(assets.get("css/bootstrap-5.1.3.min.css"));
+    assertThat(assets.getTemplateVariables()).containsKeys("asset_img_background_jpg", "asset_favicon_ico");
+  }
+
+  @Test
+  void testServing() throws Exception {
+    var url = assets.getTemplateVariables().get("asset_css_bootstrap_5_1_3_min_css");
+    var content = Files.readAllBytes(Path.of(STATIC, "css/bootstrap-5.1.3.min.css"));
+
+    TestUtil.test(Javalin.create().get("/*", assets), (server, client) -> {
+      var fingerprinted = client.get(url);
+      assertThat(fingerprinted.code()).isEqualTo(200);
+      assertThat(fingerprinted.header("Content-Type")).startsWith("text/css");
+      assertThat(fingerprinted.header("Cache-Control")).contains("immutable");
+      assertThat(fingerprinted.body().bytes()).isEqualTo(content);
+
+      var plain = client.get("/css/bootstrap-5.1.3.min.css");
+      assertThat(plain.code()).isEqualTo(200);
+      assertThat(plain.header("Cache-Control")).isEqualTo(StaticAssets.CACHE_REVALIDATE);
+      assertThat(plain.header("ETag")).isEqualTo(fingerprinted.header("ETag")).startsWith("\"");
+
+      var etag = plain.header("ETag");
+      var notModified = client.request("/css/bootstrap-5.1.3.min.css",
+          builder -> builder.header("If-None-Match", "\"other\", W/" + etag));
+      assertThat(notModified.code()).isEqualTo(304);
+      assertThat(notModified.body().bytes()).isEmpty();
+
+      var modified =
+          client.request("/css/bootstrap-5.1.3.min.css", builder -> builder.header("If-None-Match", "\"x\""));
+      assertThat(modified.code()).isEqualTo(200);
+
+      assertThat(client.get("/css/missing.css").code()).isEqualTo(404);
+    });
+  }
+
+  @Test
+  void testCompressedVariants(@TempDir Path folder) throws Exception {
+    var css = "body { color: black; }\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+    var js = "console.log('hello');\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+    var zopfli = "pretend this is zopfli".getBytes(StandardCharsets.UTF_8);
+    Files.write(folder.resolve("site.css"), css);
+    Files.write(folder.resolve("site.css.gz"), zopfli);
+    Files.write(folder.resolve("site.js"), js);
+    Files.write(folder.resolve("tiny.txt"), "x".getBytes(StandardCharsets.UTF_8));
+
+    var assets = StaticAssets.load(folder.toString());
+    assertThat(assets.get("site.css.gz")).isNull();
+    assertThat(assets.get("tiny.txt").getGzip()).isNull();
+
+    TestUtil.test(Javalin.create().get("/*", assets), (server, client) -> {
+      var identity = client.request("/site.js", builder -> builder.header("Accept-Encoding", "identity"));
+      assertThat(identity.header("Content-Encoding")).isNull();
+      assertThat(identity.header("Vary")).isEqualTo("Accept-Encoding");
+      assertThat(identity.body().bytes()).isEqualTo(js);
+
+      var gzip = client.request("/site.js", builder -> builder.header("Accept-Encoding", "br, gzip"));
+      assertThat(gzip.header("Content-Encoding")).isEqualTo("gzip");
+      assertThat(gzip.header("ETag")).endsWith("-gzip\"");
+      try (var in = new GZIPInputStream(gzip.body().byteStream())) {
+        assertThat(in.readAllBytes()).isEqualTo(js);
+      }
+
+      var sidecar = client.request("/site.css", builder -> builder.header("Accept-Encoding", "gzip, deflate, br"));
+      assertThat(sidecar.header("Content-Encoding")).isEqualTo("gzip");
+      assertThat(sidecar.body().bytes()).isEqualTo(zopfli);
+
+      var notModified = client.request("/site.css", builder -> builder //
+          .header("Accept-Encoding", "gzip") //
+          .header("If-None-Match", sidecar.header("ETag")));
+      assertThat(notModified.code()).isEqualTo(304);
+
+      var otherVariant = client.request("/site.css", builder -> builder //
+          .header("Accept-Encoding", "identity") //
+          .header("If-None-Match", sidecar.header("ETag")));
+      assertThat(otherVariant.code()).isEqualTo(200);
+    });
+  }
+
+  @Test
+  void testResponsiveImages() throws Exception {
+    var config = new Config.Images();
+    config.setResponsive("img/background.jpg");
+    config.setWidths("480, 800, 5000");
+    config.setQuality(0.7f);
+    var assets = StaticAssets.load(STATIC, config);
+    var original = Files.readAllBytes(Path.of(STATIC, "img/background.jpg"));
+
+    var app = Javalin.create() //
+        .get("/page", ctx -> ctx.html("<img src=\"/img/background.jpg\">")) //
+        .get("/redirect", ctx -> ctx.redirect("/page")) //
+        .get("/*", assets) //
+        .after(ResponsiveImage::requestClientHints);
+
+    TestUtil.test(app, (server, client) -> {
+      assertThat(client.get("/page").header("Accept-CH")).isEqualTo(ResponsiveImage.CLIENT_HINTS);
+      assertThat(client.getOkHttp().newBuilder().followRedirects(false).build()
+          .newCall(new Request.Builder().url(client.getOrigin() + "/redirect").build()).execute().header("Accept-CH"))
+              .isNull();
+
+      var noHints = client.get("/img/background.jpg");
+      assertThat(noHints.header("Accept-CH")).isNull();
+      assertThat(noHints.header("Content-Type")).isEqualTo("image/jpeg");
+      assertThat(noHints.header("Vary")).contains("Sec-CH-Viewport-Width");
+      assertThat(noHints.body().bytes()).isEqualTo(original);
+
+      var phone = client.request("/img/background.jpg", builder -> builder //
+          .header("Sec-CH-Viewport-Width", "390") //
+          .header("Sec-CH-DPR", "2"));
+      var phoneImage = ImageIO.read(phone.body().byteStream());
+      assertThat(phoneImage.getWidth()).isEqualTo(800);
+      assertThat(phone.header("ETag")).contains("-w800-");
+
+      var small = client.request("/img/background.jpg", builder -> builder.header("Viewport-Width", "320"));
+      assertThat(small.header("Content-Length")).isNotNull();
+      assertThat(Integer.parseInt(small.header("Content-Length"))).isLessThan(original.length / 4);
+
+      var large = client.request("/img/background.jpg", builder -> builder.header("Viewport-Width", "3000"));
+      assertThat(large.body().bytes()).isEqualTo(original);
+    });
+  }
+}
@@ -0,0 +1,74 @@
+package com.github.lbarnkow.minchir.test.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.config.Message;
+import com.github.lbarnkow.minchir.config.PluralRules;
+import com.github.lbarnkow.minchir.util.HtmlEscaper;
+import com.github.lbarnkow.minchir.util.TemplateModel;
+
+public class MessageTest {
+
+  @Test
+  void testPlainTextIsNoMessage() {
+    assertThat(Message.parse("Hello world", PluralRules.ENGLISH)).isNull();
+    assertThat(Message.parse("Braces { but } no { placeholder", PluralRules.ENGLISH)).isNull();
+  }
+
+  @Test
+  void testArguments() {
+    var message = Message.parse("Welcome back, {name}! {missing} {not a placeholder}", PluralRules.ENGLISH);
+
+    assertThat(message.format(Map.of("name", "Jane"))).isEqualTo("Welcome back, Jane! {missing} {not a placeholder}");
+  }
+
+  @Test
+  void testPlurals() {
+    var text = "{count, plural, =0 {No apps} one {# app} other {# apps}} use {name}.";
+    var english = Message.parse(text, PluralRules.ENGLISH);
+    var french = Message.parse(text, PluralRules.FRENCH);
+    var polish = Message.parse("{n, plural, one {# plik} few {# pliki} many {# plik\u00f3w} other {# pliku}}",
+        PluralRules.POLISH);
+
+    assertThat(english.format(Map.of("count", 0, "name", "x"))).isEqualTo("No apps use x.");
+    assertThat(english.format(Map.of("count", 1, "name", "x"))).isEqualTo("1 app use x.");
+    assertThat(english.format(Map.of("count", "7", "name", "x"))).isEqualTo("7 apps use x.");
+    assertThat(english.format(Map.of("count", "many", "name", "x"))).isEqualTo("many apps use x.");
+    assertThat(french.format(Map.of("count", 1L, "name", "x"))).isEqualTo("1 app use x.");
+    assertThat(polish.format(Map.of("n", 3))).isEqualTo("3 pliki");
+    assertThat(polish.format(Map.of("n", 13))).isEqualTo("13 plik\u00f3w");
+    assertThat(polish.format(Map.of("n", 22))).isEqualTo("22 pliki");
+  }
+
+  @Test
+  void testPluralsWithEscapedLiterals() {
+    var message = Message.parse("{n, plural, one {it's # item} other {it's # &amp; # more &#39;items&#39;}}",
+        PluralRules.ENGLISH, HtmlEscaper::sanitize);
+
+    assertThat(message.format(Map.of("n", 1))).isEqualTo("it&#39;s 1 item");
+    assertThat(message.format(Map.of("n", 2))).isEqualTo("it&#39;s 2 &amp; 2 more &#39;items&#39;");
+    assertThat(message.format(Map.of())).isEqualTo("{n, plural, one {it&#39;s # item} other {it&#39;s # &amp; # more "
+        + "&#39;items&#39;}}");
+  }
+
+  @Test
+  void testInvalidPlurals() {
+    assertThrows(RuntimeException.class, () -> Message.parse("{n, select, a {x}}", PluralRules.ENGLISH));
+    assertThrows(RuntimeException.class, () -> Message.parse("{n, plural, one {x}}", PluralRules.ENGLISH));
+    assertThrows(RuntimeException.class, () -> Message.parse("{n, plural, other {x}", PluralRules.ENGLISH));
+  }
+
+  @Test
+  void testTemplateModelFillsMessages() {
+    var messages = Map.of("greeting", Message.parse("Hi {subject}", PluralRules.ENGLISH));
+    var model = new TemplateModel(Map.of("subject", "<i>x</i>"), Map.of("greeting", "Hi {subject}"), messages,
+        Map.of());
+
+    assertThat(model.get("greeting")).isEqualTo("Hi &lt;i&gt;x&lt;/i&gt;");
+  }
+}
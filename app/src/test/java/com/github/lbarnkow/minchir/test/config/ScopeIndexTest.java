@@ -0,0 +1,45 @@
+package com.github.lbarnkow.minchir.test.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.config.ScopeIndex;
+import com.github.lbarnkow.minchir.config.Scopes;
+import com.github.lbarnkow.minchir.config.Translations;
+
+public class ScopeIndexTest {
+
+  private final Translations translations = Translations.load("assets/i18n/translations.yaml");
+  private final ScopeIndex index = new ScopeIndex(translations, Scopes.load("assets/scopes/scopes.yaml"));
+
+  @Test
+  void testScopeList() {
+    var en = translations.get("en");
+    var scopeList = index.getScopeList("en", List.of("openid", "profile"));
+
+    assertThat(scopeList.keySet()).containsExactly(en.get("scope_openid"), en.get("scope_profile"));
+    assertThat(scopeList.get(en.get("scope_openid"))).isEmpty();
+    assertThat(scopeList.get(en.get("scope_profile"))).startsWith(en.get("claim_name"), en.get("claim_family_name"));
+  }
+
+  @Test
+  void testScopeListLanguageFallback() {
+    var de = index.getScopeList("de", List.of("openid"));
+    var unknown = index.getScopeList("xx", List.of("openid"));
+
+    assertThat(de.keySet()).containsExactly(translations.get("de").get("scope_openid"));
+    assertThat(unknown).isEqualTo(index.getScopeList("en", List.of("openid")));
+  }
+
+  @Test
+  void testScopeListIsCached() {
+    var first = index.getScopeList("en", List.of("openid", "email"));
+    var second = index.getScopeList("en", List.of("openid", "email"));
+
+    assertThat(second).isSameAs(first);
+    assertThat(index.getScopeList("en", List.of("email", "openid"))).isNotSameAs(first);
+  }
+}
@@ -0,0 +1,83 @@
+package com.github.lbarnkow.minchir.test.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.config.LiveSettings;
+import com.github.lbarnkow.minchir.config.Scopes;
+import com.github.lbarnkow.minchir.config.Settings;
+import com.github.lbarnkow.minchir.config.SettingsWatcher;
+import com.github.lbarnkow.minchir.config.Translations;
+
+public class SettingsWatcherTest {
+
+  @TempDir
+  Path folder;
+
+  @Test
+  void testReloadOnChange() throws Exception {
+    var translationFile = folder.resolve("translations.yaml");
+    var scopesFile = folder.resolve("scopes.yaml");
+    Files.writeString(translationFile, "global: {}\nen:\n  greeting: hello\n", StandardCharsets.UTF_8);
+    Files.writeString(scopesFile, "openid: []\n", StandardCharsets.UTF_8);
+
+    var loads = new AtomicInteger();
+    var config = Config.load("assets/config/config.yaml");
+    var settings = new LiveSettings(new Settings(config, Translations.load(translationFile.toString()),
+        Scopes.load(scopesFile.toString())));
+
+    var reloaded = new CountDownLatch(1);
+    settings.addListener(s -> reloaded.countDown());
+
+    try (var watcher = new SettingsWatcher(settings, () -> {
+      loads.incrementAndGet();
+      return new Settings(config, Translations.load(translationFile.toString()), Scopes.load(scopesFile.toString()));
+    }, List.of(translationFile.toString(), scopesFile.toString()), 200)) {
+      watcher.start();
+
+      var before = settings.get();
+      Files.writeString(folder.resolve("unrelated.txt"), "ignored", StandardCharsets.UTF_8);
+      Files.writeString(translationFile, "global: {}\nen:\n  greeting: hi\n", StandardCharsets.UTF_8);
+      Files.writeString(translationFile, "global: {}\nen:\n  greeting: howdy\n", StandardCharsets.UTF_8);
+
+      assertThat(reloaded.await(10, TimeUnit.SECONDS)).isTrue();
+      assertThat(before.getTranslations().get("en").get("greeting")).isEqualTo("hello");
+      assertThat(settings.get().getTranslations().get("en").get("greeting")).isEqualTo("howdy");
+      assertThat(loads.get()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void testBrokenFilesKeepCurrentSettings() throws Exception {
+    var translationFile = folder.resolve("translations.yaml");
+    Files.writeString(translationFile, "global: {}\nen:\n  greeting: hello\n", StandardCharsets.UTF_8);
+
+    var config = Config.load("assets/config/config.yaml");
+    var initial = new Settings(config, Translations.load(translationFile.toString()), Scopes.load());
+    var settings = new LiveSettings(initial);
+    var attempted = new CountDownLatch(1);
+
+    try (var watcher = new SettingsWatcher(settings, () -> {
+      attempted.countDown();
+      return new Settings(config, Translations.load(translationFile.toString()), Scopes.load());
+    }, List.of(translationFile.toString()), 50)) {
+      watcher.start();
+      Files.writeString(translationFile, "global: {}\nen: [unbalanced\n", StandardCharsets.UTF_8);
+
+      assertThat(attempted.await(10, TimeUnit.SECONDS)).isTrue();
+      Thread.sleep(100);
+      assertThat(settings.get()).isSameAs(initial);
+    }
+  }
+}
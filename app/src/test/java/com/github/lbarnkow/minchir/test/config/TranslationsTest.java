@@ -42,4 +42,26 @@ public class TranslationsTest {
     assertThat(translations.get("invalid").get("two")).isEqualTo("translations2");
     assertThat(translations.get("invalid").get("four")).isEqualTo("translations2");
   }
+
+  @Test
+  void testLanguageNegotiation() {
+    var translations = Translations.load( //
+        Resource.resourcePath("i18n/translations1.yaml"), //
+        Resource.resourcePath("i18n/translations2.yaml"), //
+        Resource.resourcePath("i18n/translations3.yaml") //
+    );
+
+    assertThat(translations.negotiate("de")).isEqualTo("de");
+    assertThat(translations.negotiate("de-AT,de;q=0.9,en;q=0.8")).isEqualTo("de");
+    assertThat(translations.negotiate("es-ES, fr-CH;q=0.9, en;q=0.5")).isEqualTo("fr");
+    assertThat(translations.negotiate("es, pl;q=0.2, de;q=0.7")).isEqualTo("de");
+    assertThat(translations.negotiate("DE-at")).isEqualTo("de");
+    assertThat(translations.negotiate("de;q=0, fr;q=0.1")).isEqualTo("fr");
+
+    assertThat(translations.negotiate("es")).isEqualTo(Translations.DEFAULT_LANGUAGE);
+    assertThat(translations.negotiate("*")).isEqualTo(Translations.DEFAULT_LANGUAGE);
+    assertThat(translations.negotiate("")).isEqualTo(Translations.DEFAULT_LANGUAGE);
+    assertThat(translations.negotiate(null)).isEqualTo(Translations.DEFAULT_LANGUAGE);
+    assertThat(translations.negotiate("de;q=x")).isEqualTo(Translations.DEFAULT_LANGUAGE);
+  }
 }
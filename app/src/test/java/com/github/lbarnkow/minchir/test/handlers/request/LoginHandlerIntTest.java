@@ -1,6 +1,8 @@
 package com.github.lbarnkow.minchir.test.handlers.request;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
 import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.verify;
@@ -9,25 +11,36 @@ import static org.eclipse.jetty.http.HttpStatus.MOVED_TEMPORARILY_302;
 import static org.eclipse.jetty.http.HttpStatus.UNAUTHORIZED_401;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.github.lbarnkow.minchir.App;
+import com.github.lbarnkow.minchir.config.LiveSettings;
 import com.github.lbarnkow.minchir.config.Settings;
 import com.github.lbarnkow.minchir.handlers.before.csrf.CSRFSupplier.CSRFData;
+import com.github.lbarnkow.minchir.server.AdminServer;
 import com.github.lbarnkow.minchir.test.testutilities.DefaultTestEnvironmentVariables;
 import com.github.lbarnkow.minchir.test.testutilities.FileBasedWireMock;
 import com.github.lbarnkow.minchir.test.testutilities.LdapTest;
 import com.github.lbarnkow.minchir.test.util.Cookie;
+import com.github.lbarnkow.minchir.tracing.Tracer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.unboundid.ldap.listener.InMemoryDirectoryServer;
 
+import io.javalin.testtools.HttpClient;
 import io.javalin.testtools.TestUtil;
+import okhttp3.HttpUrl;
 import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
 import okhttp3.Response;
 
 @FileBasedWireMock(stubs = {"/hydra_wiremock.yaml"})
@@ -76,6 +89,212 @@ public class LoginHandlerIntTest {
     }
   }
 
+  @Test
+  void test_metrics_on_admin_port() throws Exception {
+    try (var app = new App().javalinApp(settings)) {
+      TestUtil.test(app, (server, client) -> {
+        var csrf = verifyLoginPageResponse(client.get("/login?login_challenge=non_skipped_login_flow"));
+
+        var postResponse = submitLogin(client, csrf, null);
+        assertThat(postResponse.code()).isEqualTo(MOVED_TEMPORARILY_302);
+
+        assertThat(client.get("/metrics").code()).isEqualTo(404);
+        var adminPort = AdminServer.of(app).port();
+        var metrics = client.getOkHttp()
+            .newCall(new Request.Builder().url("http://localhost:" + adminPort + "/metrics").build()).execute().body()
+            .string();
+        assertThat(metrics).contains("minchir_flow_outcomes_total{flow=\"login\",outcome=\"success\"}");
+        assertThat(metrics).contains("minchir_ldap_operation_duration_seconds_count{operation=\"bind\"}");
+        assertThat(metrics).contains("minchir_hydra_request_duration_seconds_count{flow=\"login\",action=\"accept\"}");
+      });
+    }
+  }
+
+  @Test
+  void test_server_timing_header() throws Exception {
+    settings.getConfig().getTiming().setHeader(true);
+
+    try (var app = new App().javalinApp(settings)) {
+      TestUtil.test(app, (server, client) -> {
+        var getResponse = client.get("/login?login_challenge=non_skipped_login_flow");
+        assertThat(getResponse.header("Server-Timing")).contains("csrfGenerate;dur=", "fetchLoginChallenge;dur=",
+            "render;dur=", "total;dur=");
+        var csrf = verifyLoginPageResponse(getResponse);
+
+        var postResponse = submitLogin(client, csrf, null);
+
+        assertThat(postResponse.code()).isEqualTo(MOVED_TEMPORARILY_302);
+        assertThat(postResponse.header("Server-Timing")).containsPattern(
+            "^csrfVerify;dur=[\\d.]+, fetchLoginChallenge;dur=[\\d.]+, ldapSearch;dur=[\\d.]+, ldapBind;dur=[\\d.]+, "
+                + "acceptLogin;dur=[\\d.]+, total;dur=[\\d.]+$");
+      });
+    }
+  }
+
+  @Test
+  void test_login_on_handler_executor() throws Exception {
+    settings.getConfig().getTiming().setHeader(true);
+    // stands in for the virtual thread executor, which needs a newer jdk
+    var executor = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "handler-executor"));
+    var handlerThreads = new CopyOnWriteArrayList<String>();
+
+    try (var app = new App().javalinApp(new LiveSettings(settings), runnable -> executor.execute(() -> {
+      handlerThreads.add(Thread.currentThread().getName());
+      runnable.run();
+    }))) {
+      TestUtil.test(app, (server, client) -> {
+        var getResponse = client.request("/login?login_challenge=non_skipped_login_flow",
+            builder -> builder.header("X-Request-Id", "async-get"));
+        assertThat(getResponse.header("X-Request-Id")).isEqualTo("async-get");
+        assertThat(getResponse.header("Server-Timing")).contains("fetchLoginChallenge;dur=", "render;dur=");
+        var csrf = verifyLoginPageResponse(getResponse);
+
+        var postResponse = submitLogin(client, csrf, "async-post");
+
+        assertThat(postResponse.code()).isEqualTo(MOVED_TEMPORARILY_302);
+        assertThat(postResponse.header("X-Request-Id")).isEqualTo("async-post");
+        assertThat(postResponse.header("Server-Timing")).contains("ldapBind;dur=", "acceptLogin;dur=");
+        verify(putRequestedFor(urlPathEqualTo("/oauth2/auth/requests/login/accept")) //
+            .withHeader("X-Request-Id", equalTo("async-post")));
+        assertThat(handlerThreads).containsExactly("handler-executor", "handler-executor");
+      });
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void test_trace_context_is_propagated_to_hydra() throws Exception {
+    settings.getConfig().getTracing().setEnabled(true);
+    var traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    try (var app = new App().javalinApp(settings)) {
+      TestUtil.test(app, (server, client) -> {
+        client.request("/login?login_challenge=non_skipped_login_flow",
+            builder -> builder.header("traceparent", "00-" + traceId + "-00f067aa0ba902b7-01"));
+
+        verify(getRequestedFor(urlPathEqualTo("/oauth2/auth/requests/login")) //
+            .withHeader("traceparent", matching("00-" + traceId + "-[0-9a-f]{16}-01")));
+      });
+    } finally {
+      Tracer.configure((Tracer) null);
+    }
+  }
+
+  @Test
+  void test_request_id_is_echoed_and_propagated_to_hydra() throws Exception {
+    try (var app = new App().javalinApp(settings)) {
+      TestUtil.test(app, (server, client) -> {
+        var response = client.request("/login?login_challenge=non_skipped_login_flow",
+            builder -> builder.header("X-Request-Id", "req-4711"));
+        assertThat(response.header("X-Request-Id")).isEqualTo("req-4711");
+        verify(getRequestedFor(urlPathEqualTo("/oauth2/auth/requests/login")) //
+            .withHeader("X-Request-Id", equalTo("req-4711")));
+
+        // ids that could mess up the logs are replaced
+        var generated = client.request("/login?login_challenge=non_skipped_login_flow",
+            builder -> builder.header("X-Request-Id", "evil\"id"));
+        assertThat(generated.header("X-Request-Id")).matches("[0-9a-f-]{36}");
+      });
+    }
+  }
+
+  @Test
+  void test_no_server_timing_header_by_default() throws Exception {
+    try (var app = new App().javalinApp(settings)) {
+      TestUtil.test(app, (server, client) -> {
+        var getResponse = client.get("/login?login_challenge=non_skipped_login_flow");
+        assertThat(getResponse.header("Server-Timing")).isNull();
+      });
+    }
+  }
+
+  @Test
+  void test_readiness_probes_ldap_and_hydra() throws Exception {
+    try (var app = new App().javalinApp(settings)) {
+      TestUtil.test(app, (server, client) -> {
+        var url = "http://localhost:" + AdminServer.of(app).port() + "/health/ready";
+
+        // the first background check runs right after startup
+        Response response = null;
+        for (var i = 0; i < 50; i++) {
+          response = client.getOkHttp().newCall(new Request.Builder().url(url).build()).execute();
+          if (response.code() == 200) {
+            break;
+          }
+          Thread.sleep(100);
+        }
+        assertThat(response.code()).isEqualTo(200);
+        assertThat(response.body().string()).contains("\"ldap\":{\"status\":\"UP\"}", "\"hydra\":{\"status\":\"UP\"}");
+      });
+    }
+  }
+
+  @Test
+  void test_login_page_content_length() throws Exception {
+    try (var app = new App().javalinApp(settings)) {
+      TestUtil.test(app, (server, client) -> {
+        for (var i = 0; i < 3; i++) {
+          var response = client.request("/login?login_challenge=non_skipped_login_flow",
+              builder -> builder.header("Accept-Encoding", "identity"));
+
+          assertThat(response.code()).isEqualTo(200);
+          assertThat(response.header("Content-Type")).startsWith("text/html");
+          var body = response.body().bytes();
+          assertThat(response.header("Content-Length")).isEqualTo(String.valueOf(body.length));
+          assertThat(new String(body, StandardCharsets.UTF_8)).contains("<!-- LOGIN -->").endsWith("</html>\n") //
+              .containsPattern("href=\"/css/bootstrap-5\\.1\\.3\\.min\\.[0-9a-f]{16}\\.css\"") //
+              .doesNotContain("${asset_");
+        }
+      });
+    }
+  }
+
+  @Test
+  void test_error_page_precompressed() throws Exception {
+    try (var app = new App().javalinApp(settings)) {
+      TestUtil.test(app, (server, client) -> {
+        var plain = client.request("/login", builder -> builder.header("Accept-Encoding", "identity"));
+        assertThat(plain.code()).isEqualTo(400);
+        assertThat(plain.header("Content-Encoding")).isNull();
+        var html = plain.body().string();
+        assertThat(html).contains("400 - Bad request");
+
+        var gzipped = client.request("/login", builder -> builder.header("Accept-Encoding", "gzip"));
+        assertThat(gzipped.code()).isEqualTo(400);
+        assertThat(gzipped.header("Content-Encoding")).isEqualTo("gzip");
+        try (var in = new GZIPInputStream(gzipped.body().byteStream())) {
+          assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(html);
+        }
+      });
+    }
+  }
+
+  @Test
+  void test_error_page_assets_below_nested_path() throws Exception {
+    try (var app = new App().javalinApp(settings)) {
+      TestUtil.test(app, (server, client) -> {
+        var page = client.get("/a/b");
+        assertThat(page.code()).isEqualTo(404);
+        var html = page.body().string();
+
+        var urls = new ArrayList<String>();
+        var matcher = Pattern.compile("(?:href=\"|src=\"|url\\()([^\")]+)").matcher(html);
+        while (matcher.find()) {
+          urls.add(matcher.group(1));
+        }
+        assertThat(urls).hasSizeGreaterThanOrEqualTo(7).allMatch(url -> url.startsWith("/"));
+
+        // resolved like a browser would against the page's url, every asset must exist
+        var base = HttpUrl.get(client.getOrigin() + "/a/b");
+        for (var url : urls) {
+          var asset = client.getOkHttp().newCall(new Request.Builder().url(base.resolve(url)).build()).execute();
+          assertThat(asset.code()).as(url).isEqualTo(200);
+        }
+      });
+    }
+  }
+
   @Test
   void test_successful_skipped_login() throws Exception {
     try (var app = new App().javalinApp(settings)) {
@@ -160,6 +379,30 @@ public class LoginHandlerIntTest {
     }
   }
 
+  /**
+   * Submits valid credentials for 'ldaptest1' without following the redirect; {@code requestId} may be null.
+   */
+  private Response submitLogin(HttpClient client, CSRFData csrf, String requestId) {
+    client.setOkHttp(new OkHttpClient().newBuilder().followRedirects(false).build());
+    return client.request("/login", builder -> {
+      var formData = new MultipartBody.Builder() //
+          .setType(MultipartBody.FORM) //
+          .addFormDataPart("csrf_token", csrf.getToken()) //
+          .addFormDataPart("login_challenge", "non_skipped_login_flow") //
+          .addFormDataPart("username", "ldaptest1") //
+          .addFormDataPart("password", "123") //
+          .addFormDataPart("totp", "45") //
+          .addFormDataPart("rememberme", "true") //
+          .addFormDataPart("login", "Submit") //
+          .build();
+
+      builder.addHeader("Cookie", "csrf_cookie=" + csrf.getCookie()).post(formData);
+      if (requestId != null) {
+        builder.header("X-Request-Id", requestId);
+      }
+    });
+  }
+
   private CSRFData verifyLoginPageResponse(Response response) throws IOException {
     assertThat(response.code()).isEqualTo(200);
     var getBody = response.body().string();
@@ -0,0 +1,126 @@
+package com.github.lbarnkow.minchir.test.health;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.health.HealthMonitor;
+
+import io.javalin.Javalin;
+import io.javalin.testtools.TestUtil;
+
+public class HealthMonitorTest {
+
+  @Test
+  void testReadinessReflectsLastCheck() {
+    var hydraUp = new AtomicBoolean(true);
+    var monitor = new HealthMonitor(config(1000)) //
+        .register("ldap", () -> {
+        }) //
+        .register("hydra", () -> {
+          if (!hydraUp.get()) {
+            throw new RuntimeException("connection refused");
+          }
+        });
+
+    var app = Javalin.create();
+    app.get("/live", monitor::handleLiveness);
+    app.get("/ready", monitor::handleReadiness);
+
+    TestUtil.test(app, (server, client) -> {
+      // nothing checked yet
+      assertThat(client.get("/ready").code()).isEqualTo(503);
+      assertThat(client.get("/live").code()).isEqualTo(200);
+
+      monitor.runChecks();
+      var ready = client.get("/ready");
+      assertThat(ready.code()).isEqualTo(200);
+      assertThat(ready.body().string())
+          .isEqualTo("{\"status\":\"UP\",\"checks\":{\"ldap\":{\"status\":\"UP\"},\"hydra\":{\"status\":\"UP\"}}}");
+
+      hydraUp.set(false);
+      monitor.runChecks();
+      var notReady = client.get("/ready");
+      assertThat(notReady.code()).isEqualTo(503);
+      assertThat(notReady.body().string()).contains("\"hydra\":{\"status\":\"DOWN\",\"error\":\"connection refused\"}");
+      assertThat(client.get("/live").code()).isEqualTo(200);
+    });
+  }
+
+  @Test
+  void testSlowChecksTimeOut() throws Exception {
+    var release = new CountDownLatch(1);
+    var monitor = new HealthMonitor(config(50)).register("ldap", release::await);
+
+    monitor.runChecks();
+    release.countDown();
+
+    assertThat(monitor.isReady()).isFalse();
+  }
+
+  @Test
+  void testStuckChecksAreNotStartedAgain() throws Exception {
+    var release = new CountDownLatch(1);
+    var runs = new AtomicInteger();
+    var monitor = new HealthMonitor(config(50)).register("ldap", () -> {
+      runs.incrementAndGet();
+      // like a client ignoring interrupts
+      while (release.getCount() > 0) {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          // keep hanging
+        }
+      }
+    });
+    var app = Javalin.create();
+    app.get("/ready", monitor::handleReadiness);
+
+    TestUtil.test(app, (server, client) -> {
+      monitor.runChecks();
+      monitor.runChecks();
+      assertThat(runs.get()).isEqualTo(1);
+      assertThat(client.get("/ready").body().string()).contains("previous check still running");
+
+      release.countDown();
+      await(() -> {
+        monitor.runChecks();
+        return monitor.isReady();
+      });
+      assertThat(runs.get()).isEqualTo(2);
+    });
+  }
+
+  @Test
+  void testNotReadyWhileStopping() {
+    var monitor = new HealthMonitor(config(1000)).register("ldap", () -> {
+    });
+    var app = Javalin.create();
+    monitor.attachTo(app);
+
+    TestUtil.test(app, (server, client) -> {
+      monitor.runChecks();
+      assertThat(monitor.isReady()).isTrue();
+    });
+    assertThat(monitor.isReady()).isFalse();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    for (var i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+      Thread.sleep(10);
+    }
+  }
+
+  private static Config.Health config(long timeoutMilliseconds) {
+    var config = new Config.Health();
+    config.setIntervalMilliseconds(60_000L);
+    config.setTimeoutMilliseconds(timeoutMilliseconds);
+    return config;
+  }
+}
@@ -0,0 +1,38 @@
+package com.github.lbarnkow.minchir.test.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.logging.JsonEncoder;
+import com.google.gson.Gson;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+public class JsonEncoderTest {
+
+  @Test
+  void testEncodesOneJsonObjectPerLine() {
+    var context = new LoggerContext();
+    var event = new LoggingEvent(getClass().getName(), context.getLogger("minchir.test"), Level.WARN,
+        "User '{}' said \"hi\"\nand left", new IllegalStateException("boom"), new Object[] {"ldaptest1"});
+    event.setMDCPropertyMap(Map.of("request_id", "abc-123"));
+
+    var line = new String(new JsonEncoder().encode(event), StandardCharsets.UTF_8);
+
+    assertThat(line).endsWith("}\n").doesNotContain("\nand");
+    @SuppressWarnings("unchecked")
+    Map<String, String> json = new Gson().fromJson(line, Map.class);
+    assertThat(json).containsEntry("level", "WARN") //
+        .containsEntry("logger", "minchir.test") //
+        .containsEntry("message", "User 'ldaptest1' said \"hi\"\nand left") //
+        .containsEntry("request_id", "abc-123") //
+        .containsKeys("timestamp", "thread");
+    assertThat(json.get("exception")).startsWith("java.lang.IllegalStateException: boom");
+  }
+}
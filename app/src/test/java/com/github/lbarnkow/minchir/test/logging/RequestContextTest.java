@@ -0,0 +1,40 @@
+package com.github.lbarnkow.minchir.test.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import com.github.lbarnkow.minchir.logging.RequestContext;
+
+import io.javalin.Javalin;
+import io.javalin.testtools.TestUtil;
+
+public class RequestContextTest {
+
+  @Test
+  void testBindingOnTheRequestThreadKeepsTheIdForAfterHandlers() {
+    List<String> seenAfter = new CopyOnWriteArrayList<>();
+    var app = Javalin.create();
+    app.before(RequestContext::begin);
+    app.get("/", ctx -> {
+      var logContext = RequestContext.bind(ctx);
+      try {
+        ctx.result(MDC.get(RequestContext.REQUEST_ID));
+      } finally {
+        logContext.close();
+      }
+    });
+    app.after(ctx -> seenAfter.add(MDC.get(RequestContext.REQUEST_ID)));
+    app.after(RequestContext::end);
+
+    TestUtil.test(app, (server, client) -> {
+      var response = client.request("/", builder -> builder.header(RequestContext.HEADER, "abc-123"));
+      assertThat(response.body().string()).isEqualTo("abc-123");
+      assertThat(seenAfter).containsExactly("abc-123");
+    });
+  }
+}
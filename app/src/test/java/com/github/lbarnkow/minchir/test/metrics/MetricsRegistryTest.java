@@ -0,0 +1,67 @@
+package com.github.lbarnkow.minchir.test.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.metrics.JvmMetrics;
+import com.github.lbarnkow.minchir.metrics.MetricsRegistry;
+
+public class MetricsRegistryTest {
+
+  @Test
+  void testCounterFormat() {
+    var registry = new MetricsRegistry();
+    var counter = registry.counter("test_total", "A test counter.", "flow", "outcome");
+    counter.inc("login", "success");
+    counter.inc("login", "success");
+    counter.inc("login", "weird \"value\"");
+
+    assertThat(registry.scrape()).isEqualTo("" //
+        + "# HELP test_total A test counter.\n" //
+        + "# TYPE test_total counter\n" //
+        + "test_total{flow=\"login\",outcome=\"success\"} 2\n" //
+        + "test_total{flow=\"login\",outcome=\"weird \\\"value\\\"\"} 1\n");
+  }
+
+  @Test
+  void testHistogramFormat() {
+    var registry = new MetricsRegistry();
+    var histogram = registry.histogram("test_seconds", "A test histogram.", "stage").labels("ldap");
+    histogram.observeNanos(3_000_000); // 3ms
+    histogram.observeNanos(200_000_000); // 200ms
+    histogram.observeNanos(20_000_000_000L); // 20s
+
+    var scrape = registry.scrape();
+    assertThat(scrape).contains("# TYPE test_seconds histogram\n");
+    assertThat(scrape).contains("test_seconds_bucket{stage=\"ldap\",le=\"0.0025\"} 0\n");
+    assertThat(scrape).contains("test_seconds_bucket{stage=\"ldap\",le=\"0.005\"} 1\n");
+    assertThat(scrape).contains("test_seconds_bucket{stage=\"ldap\",le=\"0.25\"} 2\n");
+    assertThat(scrape).contains("test_seconds_bucket{stage=\"ldap\",le=\"10\"} 2\n");
+    assertThat(scrape).contains("test_seconds_bucket{stage=\"ldap\",le=\"+Inf\"} 3\n");
+    assertThat(scrape).contains("test_seconds_sum{stage=\"ldap\"} 20.203\n");
+    assertThat(scrape).contains("test_seconds_count{stage=\"ldap\"} 3\n");
+  }
+
+  @Test
+  void testRegistrationIsIdempotentPerType() {
+    var registry = new MetricsRegistry();
+    var counter = registry.counter("test_total", "A test counter.");
+
+    assertThat(registry.counter("test_total", "A test counter.")).isSameAs(counter);
+    assertThrows(IllegalArgumentException.class, () -> registry.histogram("test_total", "Not a counter."));
+    assertThrows(IllegalArgumentException.class, () -> counter.inc("unexpected"));
+  }
+
+  @Test
+  void testJvmMetrics() {
+    var registry = new MetricsRegistry();
+    JvmMetrics.register(registry);
+
+    var scrape = registry.scrape();
+    assertThat(scrape).contains("# TYPE jvm_memory_bytes_used gauge\n");
+    assertThat(scrape).containsPattern("jvm_memory_bytes_used\\{area=\"heap\"\\} \\d+");
+    assertThat(scrape).containsPattern("jvm_threads_current \\d+");
+  }
+}
@@ -0,0 +1,36 @@
+package com.github.lbarnkow.minchir.test.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.metrics.RequestTimings;
+
+public class RequestTimingsTest {
+
+  @Test
+  void testFormats() {
+    var timings = new RequestTimings();
+    timings.add("fetchLoginChallenge", 12_345_678);
+    timings.add("ldapBind", 4_000_000);
+
+    assertThat(timings.toServerTiming())
+        .matches("fetchLoginChallenge;dur=12\\.3, ldapBind;dur=4\\.0, total;dur=\\d+\\.\\d");
+    assertThat(timings.toLogFields()).matches("total_ms=\\d+\\.\\d fetchLoginChallenge_ms=12\\.3 ldapBind_ms=4\\.0");
+  }
+
+  @Test
+  void testRecordsOnlyWhileBound() throws Exception {
+    var timings = new RequestTimings();
+
+    RequestTimings.record("unbound", 1_000_000);
+    assertThat(timings.toLogFields()).doesNotContain("unbound");
+
+    timings.bindToThread();
+    RequestTimings.record("render", 1_500_000);
+    timings.close();
+    RequestTimings.record("afterwards", 1_000_000);
+
+    assertThat(timings.toLogFields()).endsWith(" render_ms=1.5");
+  }
+}
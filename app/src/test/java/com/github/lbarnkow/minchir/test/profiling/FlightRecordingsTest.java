@@ -0,0 +1,98 @@
+package com.github.lbarnkow.minchir.test.profiling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.metrics.Metrics;
+import com.github.lbarnkow.minchir.metrics.RequestTimings;
+import com.github.lbarnkow.minchir.profiling.FlightRecordings;
+import com.github.lbarnkow.minchir.profiling.StageEvent;
+
+import io.javalin.Javalin;
+import io.javalin.testtools.HttpClient;
+import io.javalin.testtools.TestUtil;
+import jdk.jfr.EventType;
+import jdk.jfr.consumer.RecordingFile;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+public class FlightRecordingsTest {
+
+  private static final String[] SENSITIVE_EVENTS = {"jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty",
+      "jdk.JVMInformation", "jdk.SystemProcess"};
+
+  @TempDir
+  Path tmp;
+
+  @Test
+  void testRecordsStageEventsAndDownloadsTheRecording() throws Exception {
+    var config = Config.load("assets/config/config.yaml").getProfiling();
+    config.setSettings("default");
+
+    var recordings = new FlightRecordings(config);
+    var app = Javalin.create();
+    app.get("/jfr", recordings::handleStatus);
+    app.post("/jfr/start", recordings::handleStart);
+    app.post("/jfr/stop", recordings::handleStop);
+    app.get("/jfr/download", recordings::handleDownload);
+
+    TestUtil.test(app, (server, client) -> {
+      assertThat(client.get("/jfr").body().string()).contains("\"state\":\"NONE\"");
+      assertThat(client.get("/jfr/download").code()).isEqualTo(404);
+      assertThat(post(client, "/jfr/stop").code()).isEqualTo(409);
+
+      var started = post(client, "/jfr/start?durationSeconds=60");
+      assertThat(started.code()).isEqualTo(200);
+      assertThat(started.body().string()).contains("\"state\":\"RUNNING\"", "\"durationSeconds\":60");
+      assertThat(post(client, "/jfr/start").code()).isEqualTo(409);
+
+      var timings = new RequestTimings("login").bindToThread();
+      Metrics.CSRF_DURATION.labels("verify").startTimer("csrfVerify").outcome("invalid").close();
+      timings.close();
+
+      assertThat(post(client, "/jfr/stop").body().string()).contains("\"state\":\"STOPPED\"");
+
+      var download = client.get("/jfr/download");
+      assertThat(download.header("Content-Disposition")).contains("minchir.jfr");
+      var file = tmp.resolve("recording.jfr");
+      Files.write(file, download.body().bytes());
+
+      var allEvents = RecordingFile.readAllEvents(file);
+      // these carry the environment (ldap bind password, ...), system properties and command lines
+      assertThat(allEvents).extracting(event -> event.getEventType().getName()) //
+          .isNotEmpty() //
+          .doesNotContain(SENSITIVE_EVENTS);
+      // the recording's own metadata shows them switched off, not just absent
+      try (var recording = new RecordingFile(file)) {
+        var names = recording.readEventTypes().stream() //
+            .collect(Collectors.toMap(EventType::getId, EventType::getName));
+        var disabled = allEvents.stream() //
+            .filter(event -> "jdk.ActiveSetting".equals(event.getEventType().getName())) //
+            .filter(event -> "enabled".equals(event.getString("name")) && "false".equals(event.getString("value"))) //
+            .map(event -> names.get(event.getLong("id"))) //
+            .toList();
+        assertThat(disabled).contains(SENSITIVE_EVENTS);
+      }
+
+      var events = allEvents.stream() //
+          .filter(event -> StageEvent.NAME.equals(event.getEventType().getName())) //
+          .toList();
+      assertThat(events).hasSize(1);
+      assertThat(events.get(0).getString("flow")).isEqualTo("login");
+      assertThat(events.get(0).getString("stage")).isEqualTo("csrfVerify");
+      assertThat(events.get(0).getString("outcome")).isEqualTo("invalid");
+    });
+  }
+
+  private static Response post(HttpClient client, String path) {
+    return client.request(path, builder -> builder.post(RequestBody.create(new byte[0], MediaType.get("text/plain"))));
+  }
+}
@@ -0,0 +1,37 @@
+package com.github.lbarnkow.minchir.test.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.server.AdminServer;
+
+import io.javalin.Javalin;
+import io.javalin.testtools.TestUtil;
+import okhttp3.Request;
+
+public class AdminServerTest {
+
+  @Test
+  void testAdminEndpointsRunOnTheirOwnPortAndPool() {
+    var config = Config.load("assets/config/config.yaml").getAdmin();
+    config.setHost("localhost");
+    config.setPort(0);
+
+    var app = Javalin.create();
+    app.get("/", ctx -> ctx.result("public"));
+    var admin = new AdminServer(config).get("/thread", ctx -> ctx.result(Thread.currentThread().getName()));
+    admin.attachTo(app);
+
+    TestUtil.test(app, (server, client) -> {
+      assertThat(AdminServer.of(app)).isSameAs(admin);
+      assertThat(admin.port()).isNotEqualTo(server.port());
+      assertThat(client.get("/thread").code()).isEqualTo(404);
+
+      var response = client.getOkHttp()
+          .newCall(new Request.Builder().url("http://localhost:" + admin.port() + "/thread").build()).execute();
+      assertThat(response.body().string()).startsWith("AdminThreadPool");
+    });
+  }
+}
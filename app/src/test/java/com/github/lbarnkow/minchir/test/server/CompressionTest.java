@@ -0,0 +1,121 @@
+package com.github.lbarnkow.minchir.test.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.config.Translations;
+import com.github.lbarnkow.minchir.server.Compression;
+import com.github.lbarnkow.minchir.templates.CompiledTemplateRenderer;
+import com.github.lbarnkow.minchir.util.TemplateModel;
+
+import io.javalin.Javalin;
+import io.javalin.http.OutputStreamWrapper;
+import io.javalin.testtools.TestUtil;
+
+public class CompressionTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CompressionTest.class);
+
+  private final int defaultMinSize = OutputStreamWrapper.Companion.getMinSizeForCompression();
+
+  @AfterEach
+  void restoreMinSize() {
+    OutputStreamWrapper.Companion.setMinSizeForCompression(defaultMinSize);
+  }
+
+  @Test
+  void testConfiguredCompression() {
+    var config = compression(true, 1, false, 200);
+    var app = Javalin.create(c -> Compression.configure(c, config));
+    app.get("/large", ctx -> ctx.result("x".repeat(300)));
+    app.get("/small", ctx -> ctx.result("x".repeat(100)));
+
+    TestUtil.test(app, (server, client) -> {
+      var large = client.request("/large", builder -> builder.header("Accept-Encoding", "gzip"));
+      assertThat(large.header("Content-Encoding")).isEqualTo("gzip");
+
+      var small = client.request("/small", builder -> builder.header("Accept-Encoding", "gzip"));
+      assertThat(small.header("Content-Encoding")).isNull();
+    });
+  }
+
+  @Test
+  void testDisabledCompression() {
+    var app = Javalin.create(c -> Compression.configure(c, compression(false, 6, false, 200)));
+    app.get("/large", ctx -> ctx.result("x".repeat(3000)));
+
+    TestUtil.test(app, (server, client) -> {
+      var large = client.request("/large", builder -> builder.header("Accept-Encoding", "gzip"));
+      assertThat(large.header("Content-Encoding")).isNull();
+    });
+  }
+
+  @Test
+  void testBrotliNeedsJvmBrotli() {
+    var e = assertThrows(RuntimeException.class,
+        () -> Javalin.create(c -> Compression.configure(c, compression(true, 6, true, 1500))));
+    assertThat(e.getMessage()).contains("jvm-brotli");
+  }
+
+  @Test
+  @Tag("benchmark") // run with 'gradle benchmark'
+  void testMeasureGzipLevels() throws IOException {
+    var renderer = new CompiledTemplateRenderer(Config.load("assets/config/config.yaml"));
+    var translations = Translations.load("assets/i18n/translations.yaml").get("en");
+    var vars = new HashMap<String, Object>();
+    vars.put("csrf_token", "12345678");
+    vars.put("login_challenge", "login-challenge");
+    var page = renderer.render("login", new TemplateModel(vars, translations)).getBytes(StandardCharsets.UTF_8);
+
+    var iterations = 2_000;
+    var sizes = new HashMap<Integer, Integer>();
+    for (var level : List.of(1, 6, 9, 1, 6, 9)) {
+      var start = System.nanoTime();
+      for (var i = 0; i < iterations; i++) {
+        sizes.put(level, gzip(page, level).length);
+      }
+      var nanosPerOp = (System.nanoTime() - start) / iterations;
+      LOG.info("gzip level {}: {} -> {} bytes in {} us per login page", level, page.length, sizes.get(level),
+          nanosPerOp / 1000.0);
+    }
+
+    assertThat(sizes.get(1)).isLessThan(page.length / 2);
+    assertThat(sizes.get(9)).isLessThanOrEqualTo(sizes.get(6)).isLessThanOrEqualTo(sizes.get(1));
+  }
+
+  private static Config.Compression compression(boolean gzip, int gzipLevel, boolean brotli, int minSize) {
+    var config = new Config.Compression();
+    config.setGzip(gzip);
+    config.setGzipLevel(gzipLevel);
+    config.setBrotli(brotli);
+    config.setBrotliLevel(4);
+    config.setMinSizeBytes(minSize);
+    return config;
+  }
+
+  private static byte[] gzip(byte[] data, int level) throws IOException {
+    var out = new ByteArrayOutputStream(data.length);
+    try (var gzip = new GZIPOutputStream(out) {
+      {
+        def.setLevel(level);
+      }
+    }) {
+      gzip.write(data);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,92 @@
+package com.github.lbarnkow.minchir.test.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.server.ConcurrencyLimiter;
+
+public class ConcurrencyLimiterTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  void testNewFlowsLeaveRoomForInFlightFlows() {
+    var limiter = new ConcurrencyLimiter(config(10), clock::get);
+
+    var permits = new ArrayList<ConcurrencyLimiter.Permit>();
+    for (var i = 0; i < 8; i++) {
+      permits.add(limiter.tryAcquire(false));
+    }
+    assertThat(permits).doesNotContainNull();
+    assertThat(limiter.tryAcquire(false)).isNull();
+
+    assertThat(limiter.tryAcquire(true)).isNotNull();
+    assertThat(limiter.tryAcquire(true)).isNotNull();
+    assertThat(limiter.tryAcquire(true)).isNull();
+    assertThat(limiter.getInFlight()).isEqualTo(10);
+  }
+
+  @Test
+  void testRequestsCanTurnOutToStartANewFlow() {
+    var limiter = new ConcurrencyLimiter(config(10), clock::get);
+
+    var permits = new ArrayList<ConcurrencyLimiter.Permit>();
+    for (var i = 0; i < 8; i++) {
+      permits.add(limiter.tryAcquire(true));
+    }
+    assertThat(permits.get(7).startsNewFlow()).isTrue();
+
+    // e.g. a GET that hydra doesn't let skip the form, while new flows already use their share
+    var get = limiter.tryAcquire(true);
+    assertThat(get).isNotNull();
+    assertThat(get.startsNewFlow()).isFalse();
+    get.release();
+
+    permits.get(0).release();
+    assertThat(limiter.tryAcquire(true).startsNewFlow()).isTrue();
+  }
+
+  @Test
+  void testLimitFollowsLatency() {
+    var limiter = new ConcurrencyLimiter(config(10), clock::get);
+
+    // healthy and fully used: the limit grows
+    for (var i = 0; i < 50; i++) {
+      runBatch(limiter, limiter.getLimit(), 10_000_000);
+    }
+    var grown = limiter.getLimit();
+    assertThat(grown).isGreaterThan(10);
+
+    // latency explodes (e.g. a slow ldap): the limit shrinks
+    for (var i = 0; i < 20; i++) {
+      runBatch(limiter, limiter.getLimit(), 200_000_000);
+    }
+    assertThat(limiter.getLimit()).isLessThan(grown / 2).isGreaterThanOrEqualTo(4);
+  }
+
+  private void runBatch(ConcurrencyLimiter limiter, int size, long latency) {
+    var permits = new ArrayList<ConcurrencyLimiter.Permit>();
+    for (var i = 0; i < size; i++) {
+      permits.add(limiter.tryAcquire(true));
+    }
+    clock.addAndGet(latency);
+    permits.forEach(ConcurrencyLimiter.Permit::release);
+  }
+
+  private static Config.ConcurrencyLimit config(int initialLimit) {
+    var config = new Config.ConcurrencyLimit();
+    config.setEnabled(true);
+    config.setInitialLimit(initialLimit);
+    config.setMinLimit(4);
+    config.setMaxLimit(100);
+    config.setTolerance(2.0f);
+    config.setNewFlowShare(0.8f);
+    config.setRetryAfterSeconds(1);
+    return config;
+  }
+}
@@ -0,0 +1,42 @@
+package com.github.lbarnkow.minchir.test.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.server.LoadShedder;
+
+import io.javalin.Javalin;
+import io.javalin.testtools.TestUtil;
+
+public class LoadShedderTest {
+
+  @Test
+  void testShedsWhileQueueIsFull() {
+    var config = new Config.ThreadPool();
+    config.setShedQueueSize(10);
+    config.setRetryAfterSeconds(7);
+    var queued = new AtomicInteger();
+
+    var app = Javalin.create();
+    app.before(new LoadShedder(queued::get, config));
+    app.get("/", ctx -> ctx.result("ok"));
+    app.error(503, ctx -> ctx.result("busy"));
+
+    TestUtil.test(app, (server, client) -> {
+      queued.set(9);
+      var accepted = client.get("/");
+      assertThat(accepted.code()).isEqualTo(200);
+      assertThat(accepted.header("Retry-After")).isNull();
+
+      queued.set(10);
+      var shed = client.get("/");
+      assertThat(shed.code()).isEqualTo(503);
+      assertThat(shed.header("Retry-After")).isEqualTo("7");
+      assertThat(shed.body().string()).isEqualTo("busy");
+    });
+  }
+}
@@ -0,0 +1,116 @@
+package com.github.lbarnkow.minchir.test.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.FileInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.security.KeyStore;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.server.ServerFactory;
+
+import io.javalin.Javalin;
+import io.javalin.testtools.TestUtil;
+
+public class ServerFactoryTest {
+
+  private static final String PASSWORD = "changeit";
+
+  @TempDir
+  Path tmp;
+
+  @Test
+  void testPlainHttp() throws Exception {
+    var app = app(serverConfig());
+
+    TestUtil.test(app, (server, client) -> {
+      var response = send(HttpClient.newBuilder(), "http://localhost:" + server.port() + "/");
+      assertThat(response.version()).isEqualTo(HttpClient.Version.HTTP_1_1);
+      assertThat(response.body()).isEqualTo("ok");
+    });
+  }
+
+  @Test
+  void testH2cUpgrade() throws Exception {
+    var config = serverConfig();
+    config.setH2c(true);
+    var app = app(config);
+
+    TestUtil.test(app, (server, client) -> {
+      var response = send(HttpClient.newBuilder(), "http://localhost:" + server.port() + "/");
+      assertThat(response.version()).isEqualTo(HttpClient.Version.HTTP_2);
+      assertThat(response.body()).isEqualTo("ok");
+    });
+  }
+
+  @Test
+  void testTlsNegotiatesHttp2() throws Exception {
+    var keyStore = tmp.resolve("keystore.p12");
+    var keytool = Path.of(System.getProperty("java.home"), "bin", "keytool").toString();
+    var process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "minchir", "-keyalg", "RSA", "-keysize", "2048",
+        "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1", "-validity", "1", "-storetype", "PKCS12",
+        "-keystore", keyStore.toString(), "-storepass", PASSWORD).inheritIO().start();
+    assertThat(process.waitFor()).isZero();
+
+    var tls = new Config.Tls();
+    tls.setPort(freePort());
+    tls.setKeyStorePath(keyStore.toString());
+    tls.setKeyStorePassword(PASSWORD);
+    tls.setKeyStoreType("PKCS12");
+    tls.setHttp2(true);
+    var config = serverConfig();
+    config.setTls(tls);
+    var app = app(config);
+
+    TestUtil.test(app, (server, client) -> {
+      var builder = HttpClient.newBuilder().sslContext(trusting(keyStore));
+      var response = send(builder, "https://localhost:" + tls.getPort() + "/");
+      assertThat(response.version()).isEqualTo(HttpClient.Version.HTTP_2);
+      assertThat(response.body()).isEqualTo("ok");
+    });
+  }
+
+  private static Config.Server serverConfig() {
+    return Config.load("assets/config/config.yaml").getServer();
+  }
+
+  private static Javalin app(Config.Server config) {
+    var app = Javalin.create(c -> c.server(() -> ServerFactory.create(config)));
+    ServerFactory.addConnectors(app, config);
+    app.get("/", ctx -> ctx.result("ok"));
+    return app;
+  }
+
+  private static HttpResponse<String> send(HttpClient.Builder builder, String uri) throws Exception {
+    var client = builder.version(HttpClient.Version.HTTP_2).build();
+    return client.send(HttpRequest.newBuilder(URI.create(uri)).build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static SSLContext trusting(Path keyStorePath) throws Exception {
+    var keyStore = KeyStore.getInstance("PKCS12");
+    try (var in = new FileInputStream(keyStorePath.toFile())) {
+      keyStore.load(in, PASSWORD.toCharArray());
+    }
+    var trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+    trustManagers.init(keyStore);
+    var context = SSLContext.getInstance("TLS");
+    context.init(null, trustManagers.getTrustManagers(), null);
+    return context;
+  }
+
+  private static int freePort() throws Exception {
+    try (var socket = new java.net.ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package com.github.lbarnkow.minchir.test.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.server.VirtualThreads;
+
+public class VirtualThreadsTest {
+
+  @Test
+  void testTasksRunOnVirtualThreads() throws Exception {
+    assumeTrue(VirtualThreads.isSupported());
+
+    var isVirtual = VirtualThreads.executor().submit(() -> {
+      return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+    }).get();
+
+    assertThat(isVirtual).isTrue();
+  }
+
+  @Test
+  void testFailsFastOnOlderJdks() {
+    assumeFalse(VirtualThreads.isSupported());
+
+    var e = assertThrows(RuntimeException.class, VirtualThreads::executor);
+    assertThat(e.getMessage()).contains("Java 21");
+  }
+}
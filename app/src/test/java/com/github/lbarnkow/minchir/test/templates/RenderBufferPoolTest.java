@@ -0,0 +1,49 @@
+package com.github.lbarnkow.minchir.test.templates;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.templates.RenderBufferPool;
+
+public class RenderBufferPoolTest {
+
+  @Test
+  void testFailedRenderDoesNotLeakIntoTheNextPage() throws IOException {
+    var pool = new RenderBufferPool(1);
+
+    var failed = pool.acquire();
+    failed.writer().write("SECRET-csrf-token-of-user-A");
+    failed.release();
+
+    var next = pool.acquire();
+    next.writer().write("<html>page for user B</html>");
+    assertThat(new String(next.toInputStream().readAllBytes(), UTF_8)).isEqualTo("<html>page for user B</html>");
+  }
+
+  @Test
+  void testStaleReleaseDoesNotResetTheNextHolder() throws IOException {
+    var pool = new RenderBufferPool(1);
+
+    var first = pool.acquire();
+    first.writer().write("page A");
+    var stream = first.toInputStream();
+    stream.close();
+
+    var second = pool.acquire();
+    second.writer().write("page B");
+    var result = second.toInputStream();
+
+    // the first holder releases again after the buffer changed hands
+    stream.close();
+    first.release();
+    var third = pool.acquire();
+    third.writer().write("page C");
+    third.toInputStream();
+
+    assertThat(new String(result.readAllBytes(), UTF_8)).isEqualTo("page B");
+  }
+}
@@ -0,0 +1,99 @@
+package com.github.lbarnkow.minchir.test.templates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.config.Translations;
+import com.github.lbarnkow.minchir.templates.CompiledTemplateRenderer;
+import com.github.lbarnkow.minchir.templates.TemplateRenderer;
+import com.github.lbarnkow.minchir.templates.VelocityTemplateRenderer;
+import com.github.lbarnkow.minchir.templates.compiled.TemplateCompiler;
+import com.github.lbarnkow.minchir.util.TemplateModel;
+
+public class TemplateRendererTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TemplateRendererTest.class);
+
+  private static TemplateRenderer velocity;
+  private static TemplateRenderer compiled;
+  private static Map<String, String> translations;
+
+  @BeforeAll
+  static void setup() throws IOException {
+    var config = Config.load("assets/config/config.yaml");
+    velocity = new VelocityTemplateRenderer(config);
+    compiled = new CompiledTemplateRenderer(config);
+    translations = Translations.load("assets/i18n/translations.yaml").get("en");
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"login", "consent", "logout", "400", "404", "500"})
+  void testCompiledMatchesVelocity(String template) throws IOException {
+    for (var vars : List.of(Map.<String, Object>of(), runtimeVars())) {
+      var model = new TemplateModel(vars, translations);
+      assertThat(compiled.render(template, model)).isEqualTo(velocity.render(template, model));
+    }
+  }
+
+  @Test
+  void testUnsupportedDirective() {
+    var e = assertThrows(RuntimeException.class, () -> TemplateCompiler.compile("test", "a\n#set($a = 1)\n"));
+    assertThat(e.getMessage()).contains("#set").contains("line 2");
+  }
+
+  @Test
+  void testMissingEnd() {
+    var e = assertThrows(RuntimeException.class, () -> TemplateCompiler.compile("test", "#if($a)\nb\n"));
+    assertThat(e.getMessage()).contains("missing #end");
+  }
+
+  @Test
+  @Tag("benchmark") // run with 'gradle benchmark'
+  void testBenchmarkAgainstVelocity() throws IOException {
+    var model = new TemplateModel(runtimeVars(), translations);
+    var iterations = 2_000;
+
+    for (var renderer : List.of(velocity, compiled, velocity, compiled)) {
+      var start = System.nanoTime();
+      for (var i = 0; i < iterations; i++) {
+        renderer.render("consent", model);
+      }
+      var nanosPerOp = (System.nanoTime() - start) / iterations;
+      LOG.info("{}: {} us per consent page render", renderer.getClass().getSimpleName(), nanosPerOp / 1000.0);
+    }
+  }
+
+  private static Map<String, Object> runtimeVars() {
+    var scopes = new LinkedHashMap<String, List<String>>();
+    scopes.put("Access to your username used for login.", List.of());
+    scopes.put("Access to the following personal profile information", List.of("Full name", "Nickname"));
+
+    var vars = new HashMap<String, Object>();
+    vars.put("csrf_token", "12345678");
+    vars.put("login_challenge", "login-challenge");
+    vars.put("consent_challenge", "consent-challenge");
+    vars.put("logout_challenge", "logout-challenge");
+    vars.put("error_bad_credentials", true);
+    vars.put("username", "jdoe");
+    vars.put("rememberme", true);
+    vars.put("client", "Some App");
+    vars.put("subject", "jdoe");
+    vars.put("scopes", scopes);
+    return vars;
+  }
+}
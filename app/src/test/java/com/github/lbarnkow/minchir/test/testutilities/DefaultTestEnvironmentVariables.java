@@ -38,6 +38,7 @@ public class DefaultTestEnvironmentVariables {
     var config = Config.load("assets/config/config.yaml");
 
     config.getHydra().setAdminUrl(oryAdminUrl);
+    config.getAdmin().setPort(0);
 
     config.getLdap().setServerUrl("ldap://localhost:" + ldapPort);
     config.getLdap().setBindDn("cn=binduser,ou=Users,dc=myorg,dc=com");
@@ -0,0 +1,103 @@
+package com.github.lbarnkow.minchir.test.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.tracing.Tracer;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import io.javalin.Javalin;
+import io.javalin.testtools.TestUtil;
+
+public class OtlpHttpSpanExporterTest {
+
+  @AfterEach
+  void disableTracing() {
+    Tracer.configure((Tracer) null);
+  }
+
+  @Test
+  void testSpansArePostedAsOtlpJson() {
+    List<String> received = new CopyOnWriteArrayList<>();
+    var collector = Javalin.create();
+    collector.post("/v1/traces", ctx -> {
+      assertThat(ctx.contentType()).startsWith("application/json");
+      received.add(ctx.body());
+    });
+
+    TestUtil.test(collector, (server, client) -> {
+      var config = new Config.Tracing();
+      config.setEnabled(true);
+      config.setSampleRatio(1.0f);
+      config.setExporter("otlp");
+      config.setEndpoint(client.getOrigin() + "/v1/traces");
+      Tracer.configure(config);
+
+      try (var span = Tracer.startServerSpan("POST /login", null)) {
+        try (var ldap = Tracer.startSpan("ldap bind").kind("CLIENT")) {
+          ldap.attribute("db.system", "ldap").attribute("ldap.entries", 1);
+        }
+        span.attribute("http.status_code", 401).recordError(new IllegalStateException("boom"));
+      }
+      // closing the exporter sends what is still queued
+      Tracer.configure((Tracer) null);
+
+      // usually one batch, but the periodic flush may have sent the first span already
+      assertThat(received).isNotEmpty();
+      var spans = new JsonArray();
+      for (var body : received) {
+        var resourceSpans = JsonParser.parseString(body).getAsJsonObject() //
+            .getAsJsonArray("resourceSpans").get(0).getAsJsonObject();
+        var resourceAttribute = resourceSpans.getAsJsonObject("resource").getAsJsonArray("attributes").get(0);
+        assertThat(key(resourceAttribute)).isEqualTo("service.name");
+        assertThat(value(resourceAttribute, "stringValue")).isEqualTo("minchir");
+        spans.addAll(resourceSpans.getAsJsonArray("scopeSpans").get(0).getAsJsonObject().getAsJsonArray("spans"));
+      }
+      assertThat(spans).hasSize(2);
+      var ldap = spans.get(0).getAsJsonObject();
+      var login = spans.get(1).getAsJsonObject();
+
+      assertThat(ldap.get("name").getAsString()).isEqualTo("ldap bind");
+      assertThat(ldap.get("kind").getAsInt()).isEqualTo(3);
+      assertThat(ldap.get("traceId").getAsString()).isEqualTo(login.get("traceId").getAsString()).hasSize(32);
+      assertThat(ldap.get("parentSpanId").getAsString()).isEqualTo(login.get("spanId").getAsString());
+      var attributes = ldap.getAsJsonArray("attributes");
+      assertThat(attributes).hasSize(2);
+      assertThat(key(attributes.get(0))).isEqualTo("db.system");
+      assertThat(value(attributes.get(0), "stringValue")).isEqualTo("ldap");
+      assertThat(key(attributes.get(1))).isEqualTo("ldap.entries");
+      assertThat(value(attributes.get(1), "intValue")).isEqualTo("1");
+      assertThat(status(ldap).get("code").getAsInt()).isZero();
+      assertThat(status(ldap).has("message")).isFalse();
+
+      assertThat(login.get("name").getAsString()).isEqualTo("POST /login");
+      assertThat(login.get("kind").getAsInt()).isEqualTo(2);
+      assertThat(login.has("parentSpanId")).isFalse();
+      assertThat(Long.parseLong(login.get("endTimeUnixNano").getAsString()))
+          .isGreaterThanOrEqualTo(Long.parseLong(login.get("startTimeUnixNano").getAsString()));
+      assertThat(status(login).get("code").getAsInt()).isEqualTo(2);
+      assertThat(status(login).get("message").getAsString()).isEqualTo("IllegalStateException: boom");
+    });
+  }
+
+  private static String key(JsonElement attribute) {
+    return attribute.getAsJsonObject().get("key").getAsString();
+  }
+
+  private static String value(JsonElement attribute, String type) {
+    return attribute.getAsJsonObject().getAsJsonObject("value").get(type).getAsString();
+  }
+
+  private static JsonObject status(JsonObject span) {
+    return span.getAsJsonObject("status");
+  }
+}
@@ -0,0 +1,134 @@
+package com.github.lbarnkow.minchir.test.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.lbarnkow.minchir.config.Config;
+import com.github.lbarnkow.minchir.tracing.Span;
+import com.github.lbarnkow.minchir.tracing.SpanExporter;
+import com.github.lbarnkow.minchir.tracing.Tracer;
+
+public class TracerTest {
+
+  private final List<Span> exported = new ArrayList<>();
+
+  @AfterEach
+  void disableTracing() {
+    Tracer.configure((Tracer) null);
+  }
+
+  @Test
+  void testNestedSpans() {
+    Tracer.configure(new Tracer(1.0, exported::add));
+
+    try (var server = Tracer.startServerSpan("POST /login", null)) {
+      try (var client = Tracer.startSpan("acceptLogin")) {
+        assertThat(Tracer.current()).isSameAs(client);
+        assertThat(client.traceparent()).isEqualTo("00-" + server.getTraceId() + "-" + client.getSpanId() + "-01");
+      }
+      assertThat(Tracer.current()).isSameAs(server);
+    }
+
+    assertThat(exported).extracting(Span::getName).containsExactly("acceptLogin", "POST /login");
+    var client = exported.get(0);
+    var server = exported.get(1);
+    assertThat(server.getTraceId()).hasSize(32);
+    assertThat(server.getParentSpanId()).isNull();
+    assertThat(client.getTraceId()).isEqualTo(server.getTraceId());
+    assertThat(client.getParentSpanId()).isEqualTo(server.getSpanId());
+    assertThat(client.getEndEpochNanos()).isGreaterThanOrEqualTo(client.getStartEpochNanos());
+    assertThat(Tracer.current().traceparent()).isNull();
+  }
+
+  @Test
+  void testContinuesIncomingTraceparent() {
+    Tracer.configure(new Tracer(0.0, exported::add));
+    var traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    try (var span = Tracer.startServerSpan("GET /login", "00-" + traceId + "-00f067aa0ba902b7-01")) {
+      assertThat(span.getTraceId()).isEqualTo(traceId);
+      assertThat(span.getParentSpanId()).isEqualTo("00f067aa0ba902b7");
+    }
+    // the parent decided to sample, even though new traces are not sampled at all
+    assertThat(exported).hasSize(1);
+
+    try (var span = Tracer.startServerSpan("GET /login", "00-" + traceId + "-00f067aa0ba902b7-00")) {
+      assertThat(span.traceparent()).endsWith("-00");
+    }
+    try (var span = Tracer.startServerSpan("GET /login", "garbage")) {
+      assertThat(span.getTraceId()).isNotEqualTo(traceId);
+    }
+    assertThat(exported).hasSize(1);
+  }
+
+  @Test
+  void testDisabledTracingIsNoop() {
+    try (var span = Tracer.startServerSpan("GET /login", null); var child = Tracer.startSpan("ldap bind")) {
+      assertThat(span.traceparent()).isNull();
+      assertThat(child.traceparent()).isNull();
+    }
+  }
+
+  @Test
+  void testFileExporter(@TempDir Path tmp) throws Exception {
+    var file = tmp.resolve("traces.jsonl");
+    var config = new Config.Tracing();
+    config.setEnabled(true);
+    config.setSampleRatio(1.0f);
+    config.setExporter("file");
+    config.setFile(file.toString());
+    Tracer.configure(config);
+
+    try (var span = Tracer.startServerSpan("GET /login", null)) {
+      span.attribute("http.status_code", 200).recordError(new IllegalStateException("boom"));
+    }
+
+    var lines = Files.readAllLines(file);
+    assertThat(lines).hasSize(1);
+    assertThat(lines.get(0)).contains("\"name\":\"GET /login\"", "\"kind\":\"SERVER\"",
+        "\"attributes\":{\"http.status_code\":200}",
+        "\"status\":{\"code\":\"ERROR\",\"message\":\"IllegalStateException: boom\"}");
+
+    // reconfiguring closes the file, spans of the new tracer don't end up there
+    Tracer.configure(new Tracer(1.0, exported::add));
+    try (var span = Tracer.startServerSpan("GET /login", null)) {
+      assertThat(span.traceparent()).isNotNull();
+    }
+    assertThat(Files.readAllLines(file)).hasSize(1);
+    assertThat(exported).hasSize(1);
+  }
+
+  @Test
+  void testReconfiguringClosesExporter() {
+    var closed = new AtomicInteger();
+    SpanExporter exporter = new SpanExporter() {
+      @Override
+      public void export(Span span) {
+        exported.add(span);
+      }
+
+      @Override
+      public void close() {
+        closed.incrementAndGet();
+      }
+    };
+    var tracer = new Tracer(1.0, exporter);
+    Tracer.configure(tracer);
+    Tracer.configure(tracer);
+    assertThat(closed).hasValue(0);
+
+    var config = new Config.Tracing();
+    config.setEnabled(false);
+    Tracer.configure(config);
+    assertThat(closed).hasValue(1);
+  }
+}
@@ -55,6 +55,14 @@ public class CombinedModelTest {
     assertThat(combined).containsEntry("key-6", "high-6");
   }
 
+  @Test
+  public void testSize() {
+    assertThat(combined).hasSize(5);
+
+    var withGlobals = new TemplateModel(highPrio, lowPrio, Map.of(), Map.of("key-2", "g", "key-5", "g", "key-9", "g"));
+    assertThat(withGlobals.size()).isEqualTo(6).isEqualTo(withGlobals.keySet().size());
+  }
+
   @Test
   public void testPut() {
     assertThrows(UnsupportedOperationException.class, () -> combined.put("a", "b"));
@@ -92,6 +100,15 @@ public class CombinedModelTest {
     assertThat(combined.values()).containsOnly(toArray(values, Object.class));
   }
 
+  @Test
+  public void testRuntimeVarsAreEscaped() {
+    var model = new TemplateModel(Map.of("subject", "<b>x</b>", "count", 5), Map.of("text", "<b>y</b>"));
+
+    assertThat(model).containsEntry("subject", "&lt;b&gt;x&lt;/b&gt;");
+    assertThat(model).containsEntry("count", 5);
+    assertThat(model).containsEntry("text", "<b>y</b>");
+  }
+
   private <T> T[] toArray(Collection<T> collection, Class<T> clazz) {
     @SuppressWarnings("unchecked")
     T[] t = (T[]) Array.newInstance(clazz, 0);
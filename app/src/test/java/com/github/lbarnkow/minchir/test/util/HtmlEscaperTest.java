@@ -0,0 +1,37 @@
+package com.github.lbarnkow.minchir.test.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.lbarnkow.minchir.util.HtmlEscaper;
+
+public class HtmlEscaperTest {
+
+  @Test
+  void testEscape() {
+    assertThat(HtmlEscaper.escape(null)).isNull();
+    assertThat(HtmlEscaper.escape("")).isEmpty();
+    assertThat(HtmlEscaper.escape("<script>alert('x' & \"y\")</script>")) //
+        .isEqualTo("&lt;script&gt;alert(&#39;x&#39; &amp; &quot;y&quot;)&lt;/script&gt;");
+    assertThat(HtmlEscaper.escape("&amp;")).isEqualTo("&amp;amp;");
+  }
+
+  @Test
+  void testEscapeReturnsCleanValuesAsIs() {
+    var value = "ldaptest1@example.com";
+    assertThat(HtmlEscaper.escape(value)).isSameAs(value);
+  }
+
+  @Test
+  void testSanitize() {
+    var clean = "Click <b>Cancel</b> or <br/><EM>OK</EM> &#x1f972; &amp; &#39;";
+    assertThat(HtmlEscaper.sanitize(clean)).isSameAs(clean);
+
+    assertThat(HtmlEscaper.sanitize("<b onclick=\"x()\">bold</b>")) //
+        .isEqualTo("&lt;b onclick=&quot;x()&quot;&gt;bold</b>");
+    assertThat(HtmlEscaper.sanitize("<script>x</script> <img src=x>")) //
+        .isEqualTo("&lt;script&gt;x&lt;/script&gt; &lt;img src=x&gt;");
+    assertThat(HtmlEscaper.sanitize("Tom & Jerry &; &#xZZ; <b")).isEqualTo("Tom &amp; Jerry &amp;; &amp;#xZZ; &lt;b");
+  }
+}